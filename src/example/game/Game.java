@@ -3,7 +3,11 @@ package example.game;
 
 import example.game.util.Input;
 import example.game.util.Input.Key;
+import example.game.util.ParallelLoop;
+import example.game.util.graphics.AnimationClock;
 import example.game.util.graphics.Font;
+import example.game.util.graphics.Scene;
+import example.game.util.graphics.SoftwareRenderer;
 import example.game.util.sound.SoundHandler;
 
 import javax.imageio.ImageIO;
@@ -59,6 +63,12 @@ public class Game extends Canvas implements Runnable {
     private static final String TICK_OVER_PRE = "Skipping ";
     private static final String TICK_OVER_POST = " ticks is the system overloaded?";
     public static final char LINE_SEPARATOR_CHAR = '\n';
+    /**
+     * The system property which selects the render backend, "software" draws with a
+     * {@link SoftwareRenderer} anything else with Java2D
+     */
+    public static final String RENDERER_PROPERTY = "lightbringer.renderer";
+    private static final String SOFTWARE_RENDERER = "software";
 
     //size of screen in tiles
 
@@ -82,6 +92,17 @@ public class Game extends Canvas implements Runnable {
 
     //handlers
     private SoundHandler soundHandler;
+    //null when drawing with Java2D
+    private SoftwareRenderer softwareRenderer;
+    //the sprites of the world, only the ones in the viewport at the camera are drawn
+    private Scene scene;
+    private int cameraX;
+    private int cameraY;
+    //ticks the animations of the game
+    private AnimationClock animationClock;
+
+    //resource ids
+    private int testSprite;
 
     //thread security
     private boolean running;
@@ -239,6 +260,16 @@ public class Game extends Canvas implements Runnable {
 //        KitPiece.internalInit();
         soundHandler = new SoundHandler();
         input = new Input(this);
+        scene = new Scene();
+        animationClock = new AnimationClock();
+        animationClock.setParallelLoop(new ParallelLoop());
+        if(SOFTWARE_RENDERER.equals(System.getProperty(RENDERER_PROPERTY))) {
+            System.out.println("Using the software renderer");
+            softwareRenderer = new SoftwareRenderer(getRenderWidth(), getRenderHeight());
+        }
+
+        //resolve the ids once so rendering does not have to look up names
+        testSprite = ResourceLoader.getSpriteId("test");
 
         //sound example
         soundHandler.playLoop("win", 0, false);
@@ -293,7 +324,9 @@ public class Game extends Canvas implements Runnable {
             if(System.currentTimeMillis() - lastTimer > 1000) {
                 lastTimer += 1000;
                 if(frame != null) {
-                    frame.setTitle(TITLE + " | " + frames + " fps | " + ticks + " ticks");
+                    frame.setTitle(TITLE + " | " + frames + " fps | " + ticks + " ticks | " +
+                            scene.getDrawnCount() + " drawn | " + scene.getCulledCount() +
+                            " culled");
                 }
                 frames = 0;
                 ticks = 0;
@@ -306,6 +339,7 @@ public class Game extends Canvas implements Runnable {
     //private to make sure the amount of ticks stays on target
     private void tick() {
         soundHandler.tick();
+        animationClock.tick();
 
         if(input.isLeftPressed()) {
             Point mouse = input.getMouseLocation();
@@ -343,15 +377,25 @@ public class Game extends Canvas implements Runnable {
         int width = getRenderWidth();
         int height = getRenderHeight();
 
+        if(softwareRenderer != null) {
+            renderSoftware(softwareRenderer, width, height);
+            softwareRenderer.present(g, 0, 0);
+            g.dispose();
+            buffer.show();
+            return;
+        }
+
         //clear the last frame
         g.setColor(getBackground());
         g.fillRect(0, 0, width, height);
 
         //start drawing here
 
-        ResourceLoader.getSprite("test").render(g, 0, 0);
+        scene.render(g, cameraX, cameraY, width, height);
 
-        ResourceLoader.getSprite("test").renderRotated(g, width / 2, height / 2, angle, 1.2, 1.6, 15, 16);
+        ResourceLoader.getSprite(testSprite).render(g, 0, 0);
+
+        ResourceLoader.getSprite(testSprite).renderRotated(g, width / 2, height / 2, angle, 1.2, 1.6, 15, 16);
 
         getMainFont().createMessage("A little example").render(g, 200, height - 100);
 
@@ -364,6 +408,30 @@ public class Game extends Canvas implements Runnable {
         buffer.show();
     }
 
+    //the same as render but drawn on the back buffer of the software renderer
+    private void renderSoftware(SoftwareRenderer renderer, int width, int height) {
+        renderer.resize(width, height);
+        renderer.clear(getBackground().getRGB());
+
+        //start drawing here
+
+        scene.render(renderer, cameraX, cameraY, width, height);
+
+        ResourceLoader.getSprite(testSprite).render(renderer, 0, 0);
+
+        ResourceLoader.getSprite(testSprite)
+                .renderRotated(renderer, width / 2, height / 2, angle, 1.2, 1.6, 15, 16);
+
+        getMainFont().createMessage("A little example").render(renderer, 200, height - 100);
+
+        Graphics2D g = renderer.getGraphics();
+        g.setColor(Color.RED);
+
+        g.drawRect(100, 200, 100, 200);
+
+        //stop drawing here
+    }
+
     /**
      * Create a new key to read input
      * @param ints the keynumbers to trigger this key on {@link java.awt.event.KeyEvent} the VK_???
@@ -419,6 +487,30 @@ public class Game extends Canvas implements Runnable {
     }
 
 
+    /**
+     * @return the scene with the sprites of the world
+     */
+    public Scene getScene() {
+        return scene;
+    }
+
+    /**
+     * @return the clock which ticks the animations of the game every tick
+     */
+    public AnimationClock getAnimationClock() {
+        return animationClock;
+    }
+
+    /**
+     * Move the camera, the viewport shows the world from this location
+     * @param x the x coordinate in the world of the left top of the viewport
+     * @param y the y coordinate in the world of the left top of the viewport
+     */
+    public void setCamera(int x, int y) {
+        cameraX = x;
+        cameraY = y;
+    }
+
     /**
      * @return the input
      */
@@ -0,0 +1,230 @@
+package example.game;
+
+import example.game.util.ByteUtilities;
+import example.game.util.sound.SoundType;
+
+import java.awt.Dimension;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ManifestCache stores the parsed contents of a resource file in a compact binary file so the
+ * xml does not have to be parsed on every start <p>The cache remembers the length and the last
+ * modification time (or the hash when the resource file is not a file) of the resource file it was
+ * made from, when those don't match the resource file is parsed again and the cache is
+ * replaced.</p>
+ * @author davidot
+ */
+class ManifestCache {
+
+    /**
+     * Added to the name of the resource file to get the name of its cache
+     */
+    static final String SUFFIX = ".cache";
+
+    private static final int MAGIC = 0x4C42524D;
+    private static final int VERSION = 2;
+    private static final String NO_SOUND_TYPE = "";
+
+    private ManifestCache() {
+    }
+
+    /**
+     * Get the resources declared in a resource file, from the cache next to it if it is still valid
+     * @param manifest the resource file
+     *
+     * @return the resources declared
+     * @throws IOException if the resource file could not be read
+     */
+    static List<ResourceEntry> load(File manifest) throws IOException {
+        File cache = new File(manifest.getPath() + SUFFIX);
+        long length = manifest.length();
+        long stamp = manifest.lastModified();
+        List<ResourceEntry> entries = read(cache, length, stamp);
+        if(entries == null) {
+            InputStream input = new FileInputStream(manifest);
+            try {
+                entries = compile(input, cache, length, stamp);
+            } finally {
+                input.close();
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Get the resources declared in the contents of a resource file, from the cache given if it was
+     * made from the same contents
+     * @param manifest the contents of the resource file
+     * @param cache    the file to store the cache in, may be null to not use a cache
+     *
+     * @return the resources declared
+     * @throws IOException if the resource file could not be read
+     */
+    static List<ResourceEntry> load(byte[] manifest, File cache) throws IOException {
+        long length = manifest.length;
+        long stamp = ByteUtilities.hash64(manifest);
+        List<ResourceEntry> entries = cache == null ? null : read(cache, length, stamp);
+        if(entries == null) {
+            entries = compile(new ByteArrayInputStream(manifest), cache, length, stamp);
+        }
+        return entries;
+    }
+
+    private static List<ResourceEntry> compile(InputStream input, File cache, long length,
+                                               long stamp) throws IOException {
+        List<String> problems = new ArrayList<String>();
+        List<ResourceEntry> entries = ResourceLoader.readManifest(input, problems);
+        ResourceLoader.reportProblems(problems);
+        if(cache != null) {
+            write(cache, length, stamp, entries, problems);
+        }
+        return entries;
+    }
+
+    //returns null if there is no valid cache
+    private static List<ResourceEntry> read(File cache, long length, long stamp) {
+        if(!cache.isFile()) {
+            return null;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(cache)));
+            if(in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != length ||
+                    in.readLong() != stamp) {
+                return null;
+            }
+            int amount = in.readInt();
+            List<ResourceEntry> entries = new ArrayList<ResourceEntry>(amount);
+            for(int i = 0; i < amount; i++) {
+                String type = in.readUTF();
+                String name = in.readUTF();
+                String location = in.readUTF();
+                Dimension dimension = new Dimension(in.readInt(), in.readInt());
+                String soundType = in.readUTF();
+                int[] frames = readInts(in);
+                int[] times = readInts(in);
+                boolean loop = in.readBoolean();
+                entries.add(new ResourceEntry(type, name, location, dimension,
+                        soundType.equals(NO_SOUND_TYPE) ? null : SoundType.valueOf(soundType),
+                        frames, times, loop));
+            }
+            int problemAmount = in.readInt();
+            List<String> problems = new ArrayList<String>(problemAmount);
+            for(int i = 0; i < problemAmount; i++) {
+                problems.add(in.readUTF());
+            }
+            ResourceLoader.reportProblems(problems);
+            return entries;
+        } catch(IOException e) {
+            System.out.println("Could not read resource cache " + cache + " parsing again");
+            return null;
+        } catch(IllegalArgumentException e) {
+            System.out.println("Could not read resource cache " + cache + " parsing again");
+            return null;
+        } finally {
+            if(in != null) {
+                try {
+                    in.close();
+                } catch(IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private static void write(File cache, long length, long stamp, List<ResourceEntry> entries,
+                              List<String> problems) {
+        File parent = cache.getParentFile();
+        if(parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            System.out.println("Could not create cache directory " + parent);
+            return;
+        }
+        //write to another file first so a half written cache is never read, it has a unique name
+        //so other processes writing the same cache don't write into it
+        File temp;
+        try {
+            temp = File.createTempFile(cache.getName(), ".tmp", parent);
+        } catch(IOException e) {
+            System.out.println("Could not write resource cache " + cache);
+            return;
+        }
+        DataOutputStream out = null;
+        boolean written = false;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(length);
+            out.writeLong(stamp);
+            out.writeInt(entries.size());
+            for(ResourceEntry entry : entries) {
+                out.writeUTF(entry.getType());
+                out.writeUTF(entry.getName());
+                out.writeUTF(entry.getLocation());
+                out.writeInt(entry.getDimension().width);
+                out.writeInt(entry.getDimension().height);
+                out.writeUTF(entry.getSoundType() == null ? NO_SOUND_TYPE :
+                        entry.getSoundType().name());
+                writeInts(out, entry.getFrames());
+                writeInts(out, entry.getTimes());
+                out.writeBoolean(entry.isLoop());
+            }
+            out.writeInt(problems.size());
+            for(String problem : problems) {
+                out.writeUTF(problem);
+            }
+            out.close();
+            out = null;
+            if(cache.exists() && !cache.delete() || !temp.renameTo(cache)) {
+                System.out.println("Could not store resource cache " + cache);
+            } else {
+                written = true;
+            }
+        } catch(IOException e) {
+            //not being able to write the cache only makes the next start slower
+            System.out.println("Could not write resource cache " + cache);
+        } finally {
+            if(out != null) {
+                try {
+                    out.close();
+                } catch(IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            if(!written && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if(length < 0) {
+            throw new IOException("Negative length in resource cache");
+        }
+        int[] values = new int[length];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for(int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+}
@@ -0,0 +1,189 @@
+package example.game;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The PixelCache stores the decoded pixels of images in a directory so they don't have to be
+ * decoded again on the next start <p>Every image is stored in its own file named after the hash
+ * and length of the file it was decoded from, so a changed file never uses old pixels. The files
+ * are memory mapped when read. When the directory grows larger than the limit the files which were
+ * used the longest ago are removed.</p>
+ * @author davidot
+ */
+class PixelCache {
+
+    /**
+     * Images with less pixels than this are not cached because decoding them is faster than
+     * reading the cache
+     */
+    static final int MIN_PIXELS = 64 * 64;
+
+    private static final String SUFFIX = ".pix";
+    private static final int MAGIC = 0x4C425058;
+    private static final int VERSION = 1;
+    //magic, version, hash, length, width, height
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4 + 4;
+
+    private final File directory;
+    private final long maxBytes;
+    private long size = -1;
+
+    /**
+     * Create a PixelCache in a directory
+     * @param directory the directory to store the pixels in
+     * @param maxBytes  the maximum size of all the files in the directory together
+     */
+    PixelCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get the pixels decoded from a file before
+     * @param hash   the hash of the contents of the file
+     * @param length the length of the file
+     *
+     * @return the image with the pixels or null if they are not cached
+     */
+    BufferedImage read(long hash, int length) {
+        File file = getFile(hash, length);
+        if(!file.isFile()) {
+            return null;
+        }
+        try {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = raf.getChannel();
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                        channel.size());
+                if(buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC ||
+                        buffer.getInt() != VERSION || buffer.getLong() != hash ||
+                        buffer.getInt() != length) {
+                    return null;
+                }
+                int width = buffer.getInt();
+                int height = buffer.getInt();
+                if(width <= 0 || height <= 0 || buffer.remaining() != width * height * 4) {
+                    return null;
+                }
+                BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+                IntBuffer pixels = buffer.asIntBuffer();
+                pixels.get(((DataBufferInt) img.getRaster().getDataBuffer()).getData());
+                //mark it as recently used for the cleanup
+                if(!file.setLastModified(System.currentTimeMillis())) {
+                    System.out.println("Could not mark pixel cache as used " + file);
+                }
+                return img;
+            } finally {
+                raf.close();
+            }
+        } catch(IOException e) {
+            System.out.println("Could not read pixel cache " + file);
+            return null;
+        }
+    }
+
+    /**
+     * Store the pixels decoded from a file
+     * @param hash   the hash of the contents of the file
+     * @param length the length of the file
+     * @param img    the image decoded from the file
+     */
+    void write(long hash, int length, BufferedImage img) {
+        int width = img.getWidth();
+        int height = img.getHeight();
+        if(width * height < MIN_PIXELS) {
+            return;
+        }
+        if(!directory.isDirectory() && !directory.mkdirs()) {
+            System.out.println("Could not create pixel cache directory " + directory);
+            return;
+        }
+        long fileSize = HEADER_SIZE + (long) width * height * 4;
+        if(fileSize > maxBytes) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) fileSize);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(hash).putInt(length);
+        buffer.putInt(width).putInt(height);
+        buffer.asIntBuffer().put(img.getRGB(0, 0, width, height, null, 0, width));
+        buffer.rewind();
+
+        File file = getFile(hash, length);
+        //write to another file first so a half written file is never read
+        File temp = new File(directory, file.getName() + ".tmp");
+        try {
+            RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+            try {
+                raf.setLength(0);
+                FileChannel channel = raf.getChannel();
+                while(buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } finally {
+                raf.close();
+            }
+            if(file.exists() && !file.delete() || !temp.renameTo(file)) {
+                System.out.println("Could not store pixel cache " + file);
+                return;
+            }
+        } catch(IOException e) {
+            System.out.println("Could not write pixel cache " + file);
+            return;
+        }
+        if(size >= 0) {
+            size += fileSize;
+        }
+        cleanup();
+    }
+
+    /**
+     * Remove the files used the longest ago until the directory is smaller than the limit
+     */
+    void cleanup() {
+        File[] files = directory.listFiles();
+        if(files == null) {
+            return;
+        }
+        if(size < 0) {
+            size = 0;
+            for(File file : files) {
+                size += file.length();
+            }
+        }
+        if(size <= maxBytes) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return Long.compare(o1.lastModified(), o2.lastModified());
+            }
+        });
+        for(File file : files) {
+            if(size <= maxBytes) {
+                break;
+            }
+            long length = file.length();
+            if(file.getName().endsWith(SUFFIX) && file.delete()) {
+                size -= length;
+            }
+        }
+    }
+
+    private File getFile(long hash, int length) {
+        return new File(directory, Long.toHexString(hash) + '-' + Integer.toHexString(length) +
+                SUFFIX);
+    }
+
+}
@@ -0,0 +1,114 @@
+package example.game;
+
+import example.game.util.sound.SoundType;
+
+import java.awt.Dimension;
+
+/**
+ * A ResourceEntry is one resource declared in a resource file, it holds everything needed to load
+ * the resource but not the resource itself
+ * @author davidot
+ */
+public class ResourceEntry {
+
+    private final String type;
+    private final String name;
+    private final String location;
+    private final Dimension dimension;
+    private final SoundType soundType;
+    private final int[] frames;
+    private final int[] times;
+    private final boolean loop;
+
+    /**
+     * Create a ResourceEntry
+     * @param type      the type of the resource, one of the tag constants in {@link
+     *                  ResourceLoader}
+     * @param name      the name the resource will be stored under
+     * @param location  the location of the file of the resource
+     * @param dimension the size of the sprites in a sprite sheet
+     * @param soundType the type of a sound
+     */
+    public ResourceEntry(String type, String name, String location, Dimension dimension,
+                         SoundType soundType) {
+        this(type, name, location, dimension, soundType, new int[0], new int[0], false);
+    }
+
+    /**
+     * Create a ResourceEntry which can be an animation
+     * @param type      the type of the resource, one of the tag constants in {@link
+     *                  ResourceLoader}
+     * @param name      the name the resource will be stored under
+     * @param location  the location of the file of the resource or the name of the sprite sheet
+     *                  of an animation
+     * @param dimension the size of the sprites in a sprite sheet
+     * @param soundType the type of a sound
+     * @param frames    the indices in the sprite sheet of the frames of an animation
+     * @param times     the amount of ticks every frame of an animation is shown
+     * @param loop      whether an animation starts again after the last frame
+     */
+    public ResourceEntry(String type, String name, String location, Dimension dimension,
+                         SoundType soundType, int[] frames, int[] times, boolean loop) {
+        this.type = type;
+        this.name = name;
+        this.location = location;
+        this.dimension = dimension;
+        this.soundType = soundType;
+        this.frames = frames;
+        this.times = times;
+        this.loop = loop;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public Dimension getDimension() {
+        return dimension;
+    }
+
+    public SoundType getSoundType() {
+        return soundType;
+    }
+
+    /**
+     * @return the indices in the sprite sheet of the frames of an animation, empty for other
+     * resources
+     */
+    public int[] getFrames() {
+        return frames.clone();
+    }
+
+    /**
+     * @return the amount of ticks every frame of an animation is shown, empty for other resources
+     */
+    public int[] getTimes() {
+        return times.clone();
+    }
+
+    public boolean isLoop() {
+        return loop;
+    }
+
+    /**
+     * Get the key of this entry, resources of different types can have the same name so the key
+     * is made from both
+     * @return the key of this entry
+     */
+    public String getKey() {
+        return type + ':' + name;
+    }
+
+    @Override
+    public String toString() {
+        return "{type =" + type + " ,name =" + name + " ,location =" + location + '}';
+    }
+}
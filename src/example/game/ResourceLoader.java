@@ -1,7 +1,14 @@
 package example.game;
 
+import example.game.util.ByteUtilities;
+import example.game.util.ResourceRegistry;
+import example.game.util.files.FileUtilities;
+import example.game.util.graphics.AnimationDefinition;
+import example.game.util.graphics.ImageUtilities;
+import example.game.util.graphics.RegionSprite;
 import example.game.util.graphics.Sprite;
 import example.game.util.graphics.SpriteSheet;
+import example.game.util.graphics.TextureAtlas;
 import example.game.util.sound.SoundData;
 import example.game.util.sound.SoundHandler;
 import example.game.util.sound.SoundType;
@@ -14,19 +21,31 @@ import javax.xml.stream.events.Attribute;
 import javax.xml.stream.events.StartElement;
 import javax.xml.stream.events.XMLEvent;
 import java.awt.Dimension;
+import java.awt.image.BufferedImage;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * The ResourceLoader holds all the resources for the game and method to load resources <p>This is
  * the advised way to load any resources because when using this file TexturePacks will
- * automatically be checked for overwriting resources</p>
+ * automatically be checked for overwriting resources</p> <p>The {@link TexturePack}s are stacked,
+ * for every resource only the highest TexturePack declaring it is used and its file is read from
+ * the highest TexturePack which has a file at that location. Only the resources of which the
+ * winning TexturePack changes are loaded again when the stack changes.</p> <p>Loading is done by
+ * one thread at a time but getting resources never locks, so resources can be loaded on a
+ * background thread while the game is rendering</p>
  * @author davidot
  */
 public class ResourceLoader {
@@ -64,10 +83,100 @@ public class ResourceLoader {
      * Constant used in the resource files
      */
     public static final String SOUNDTYPE = "type";
+    /**
+     * Constant used in the resource files
+     */
+    public static final String ANIMATION = "animation";
+    /**
+     * Constant used in the resource files
+     */
+    public static final String FRAMES = "frames";
+    /**
+     * Constant used in the resource files
+     */
+    public static final String TIME = "time";
+    /**
+     * Constant used in the resource files
+     */
+    public static final String LOOP = "loop";
+    /**
+     * Constant used in the resource files
+     */
+    public static final String LISTSPLIT = ",";
+    /**
+     * Constant used in the resource files
+     */
+    public static final String RANGESPLIT = "-";
 
+    /**
+     * Name of the directory in the home directory of the user in which caches are stored
+     */
+    public static final String CACHE_DIRECTORY_NAME = ".lightbringer";
+
+    /**
+     * Default maximum size in bytes of the cache of decoded images
+     */
+    public static final long DEFAULT_PIXEL_CACHE_LIMIT = 256L * 1024 * 1024;
 
-    private static final Map<String, Sprite> sprites = new HashMap<String, Sprite>();
-    private static final Map<String, SpriteSheet> spriteMaps = new HashMap<String, SpriteSheet>();
+
+    //releasing is only done while holding the lock of the ResourceLoader class
+    private static final ResourceRegistry<Sprite> sprites = new ResourceRegistry<Sprite>() {
+        @Override
+        protected void onRelease(String name, Sprite value) {
+            metrics.remove(SPRITE, name);
+            if(!stopUsingImage(SPRITE + ':' + name)) {
+                value.flush();
+            }
+        }
+    };
+    private static final ResourceRegistry<SpriteSheet> spriteMaps =
+            new ResourceRegistry<SpriteSheet>() {
+                @Override
+                protected void onRelease(String name, SpriteSheet value) {
+                    metrics.remove(SPRITESHEET, name);
+                    String key = SPRITESHEET + ':' + name;
+                    if(!stopUsingSheet(key)) {
+                        value.flush();
+                    }
+                    stopUsingImage(key);
+                }
+            };
+    //the sprites of an animation belong to its sprite sheet so nothing has to be freed
+    private static final ResourceRegistry<AnimationDefinition> animations =
+            new ResourceRegistry<AnimationDefinition>();
+
+    //everything below is only used while holding the lock of the ResourceLoader class
+    //the stack of texture packs, the last one is on top
+    private static final List<TexturePack> packs = new ArrayList<TexturePack>();
+    //which entry and which file won for every resource key
+    private static Map<String, Resolution> index = new HashMap<String, Resolution>();
+
+    //the decoded resources by the hash of their file contents so they can be shared
+    private static final Map<Long, BufferedImage> loadedImages = new HashMap<Long, BufferedImage>();
+    private static final Map<String, SpriteSheet> loadedSheets =
+            new HashMap<String, SpriteSheet>();
+    private static final Map<Long, SoundData> loadedSounds = new HashMap<Long, SoundData>();
+    //which shared image and sheet every loaded resource key uses and how many keys use each
+    private static final Map<String, Long> imageHashes = new HashMap<String, Long>();
+    private static final Map<String, String> sheetKeys = new HashMap<String, String>();
+    private static final Map<Long, Integer> imageUses = new HashMap<Long, Integer>();
+    private static final Map<String, Integer> sheetUses = new HashMap<String, Integer>();
+    private static volatile TextureAtlas textureAtlas;
+    private static final Map<Long, Sprite> atlasSprites = new HashMap<Long, Sprite>();
+    private static volatile long bytesSaved; //0
+
+    private static volatile boolean leakTracking; //false
+    private static int[] sceneSprites;
+    private static int[] sceneSheets;
+    private static int[] sceneSounds;
+
+    private static final ResourceMetrics metrics = new ResourceMetrics();
+    private static volatile File metricsDumpFile;
+
+    private static volatile File cacheDirectory = new File(System.getProperty("user.home"),
+            CACHE_DIRECTORY_NAME + File.separator + "cache");
+    private static long pixelCacheLimit = DEFAULT_PIXEL_CACHE_LIMIT;
+    private static PixelCache pixelCache;
 
     private ResourceLoader() {
         //to make sure no one can initialize one
@@ -80,9 +189,53 @@ public class ResourceLoader {
      * @throws IOException if the xml file could not be read from the input stream or if the file in
      *                     the resource file could not be found
      */
+    public static synchronized void loadResources(Class<?> clazz, InputStream input)
+            throws IOException {
+        for(ResourceEntry entry : readManifest(input)) {
+            if(entry.getType().equals(SPRITE) && sprites.contains(entry.getName())) {
+                System.out.println("WARNING: Image being overwritten by {name = " +
+                        entry.getName() + " location = " + entry.getLocation() + '}');
+            } else if(entry.getType().equals(SPRITESHEET) &&
+                    spriteMaps.contains(entry.getName())) {
+                System.out.println("WARNING: SpriteSheet being overwritten by {name = " +
+                        entry.getName() + " location = " + entry.getLocation() + '}');
+            }
+            if(entry.getType().equals(ANIMATION)) {
+                loadAnimation(entry);
+                continue;
+            }
+            load(entry, getInputStream(entry.getLocation(), clazz));
+        }
+    }
+
+    /**
+     * Read all the resources declared in a resource file without loading them, malformed resources
+     * are reported and skipped or loaded with default values
+     * @param input the InputStream to the xml file
+     *
+     * @return the resources declared in the order of the file
+     * @throws IOException if the xml file could not be read from the input stream
+     */
+    public static List<ResourceEntry> readManifest(InputStream input) throws IOException {
+        List<String> problems = new ArrayList<String>();
+        List<ResourceEntry> entries = readManifest(input, problems);
+        reportProblems(problems);
+        return entries;
+    }
+
+    /**
+     * Read all the resources declared in a resource file without loading them
+     * @param input    the InputStream to the xml file
+     * @param problems the list to add a description of every malformed resource to, these
+     *                 resources are not in the returned list
+     *
+     * @return the resources declared in the order of the file
+     * @throws IOException if the xml file could not be read from the input stream
+     */
     @SuppressWarnings("unchecked")
-    public static void loadResources(Class<?> clazz, InputStream input) throws IOException {
-        List<String> allowedTags = Arrays.asList(SPRITE, SPRITESHEET, SOUND);
+    static List<ResourceEntry> readManifest(InputStream input, List<String> problems)
+            throws IOException {
+        List<ResourceEntry> entries = new ArrayList<ResourceEntry>();
         try {
             XMLInputFactory inputFactory = XMLInputFactory.newInstance();
             XMLEventReader eventReader = inputFactory.createXMLEventReader(input);
@@ -92,7 +245,8 @@ public class ResourceLoader {
                 if(event.isStartElement()) {
                     StartElement startElement = event.asStartElement();
                     String name = startElement.getName().getLocalPart();
-                    if(allowedTags.contains(name)) {
+                    if(name.equals(SPRITE) || name.equals(SPRITESHEET) || name.equals(SOUND) ||
+                            name.equals(ANIMATION)) {
 
                         Iterator<? extends Attribute> attributes;
                         try {
@@ -101,7 +255,7 @@ public class ResourceLoader {
                             attributes = (Iterator<Attribute>) startElement.getAttributes();
                         } catch(ClassCastException e) {
                             e.printStackTrace();
-                            return;
+                            return entries;
                         }
 
                         boolean hasName = false;
@@ -109,6 +263,11 @@ public class ResourceLoader {
                         Dimension currentDimension = SPRITE_SIZE;
                         SoundType soundType = SoundType.SFX;
                         boolean hasType = false;
+                        boolean hasFrames = false;
+                        int[] frames = null;
+                        int[] times = {AnimationDefinition.DEFAULT_FRAME_TIME};
+                        boolean loop = true;
+                        int line = event.getLocation().getLineNumber();
 
                         while(attributes.hasNext()) {
                             Attribute attribute = attributes.next();
@@ -117,17 +276,12 @@ public class ResourceLoader {
                                 hasName = true;
                                 currentName = attribute.getValue();
                             } else if(attribute_name.equalsIgnoreCase(DIMENSION)) {
-                                try {
-                                    String value = attribute.getValue();
-                                    String[] parts = value.split(DIMENSIONSPLIT);
-                                    if(parts.length < 2) {
-                                        continue;
-                                    }
-                                    int width = Integer.parseInt(parts[0]);
-                                    int height = Integer.parseInt(parts[1]);
-                                    currentDimension = new Dimension(width, height);
-                                } catch(NumberFormatException ignored) {
-                                    //just continue we will see what the next input brings
+                                Dimension dimension = parseDimension(attribute.getValue());
+                                if(dimension == null) {
+                                    problems.add("Line " + line + ": " + name +
+                                            " has an invalid dimension " + attribute.getValue());
+                                } else {
+                                    currentDimension = dimension;
                                 }
                             } else if(attribute_name.equalsIgnoreCase(SOUNDTYPE)) {
                                 SoundType fromString = SoundType.fromString(attribute.getValue());
@@ -140,36 +294,70 @@ public class ResourceLoader {
                                  * SFX it is possible we find another valid tag which will then
                                  * overwrite this (because it is inited to that)
                                  */
+                            } else if(attribute_name.equalsIgnoreCase(FRAMES)) {
+                                hasFrames = true;
+                                frames = parseList(attribute.getValue(), true);
+                                if(frames == null) {
+                                    problems.add("Line " + line + ": " + name +
+                                            " has invalid frames " + attribute.getValue());
+                                }
+                            } else if(attribute_name.equalsIgnoreCase(TIME)) {
+                                int[] parsed = parseList(attribute.getValue(), false);
+                                if(parsed == null) {
+                                    problems.add("Line " + line + ": " + name +
+                                            " has an invalid time " + attribute.getValue());
+                                } else {
+                                    times = parsed;
+                                }
+                            } else if(attribute_name.equalsIgnoreCase(LOOP)) {
+                                loop = Boolean.parseBoolean(attribute.getValue().trim());
                             }
                         }
                         if(!hasName) {
+                            problems.add("Line " + line + ": " + name + " does not have a name");
                             continue;
                         }
 
-                        if(name.equalsIgnoreCase(SOUND) && !hasType) {
-                            System.out.println("Sound " + currentName + " does not have a type");
+                        if(name.equals(SOUND) && !hasType) {
+                            problems.add("Line " + line + ": Sound " + currentName +
+                                    " does not have a type");
                             continue;
                         }
 
-                        String location = eventReader.nextEvent().asCharacters().getData();
-
-                        //System.out.println("Loading resource {type =" + name + " ,name =" +
-                        // currentName + " ,location =" + location + "}");
-
-                        try {
-                            if(name.equalsIgnoreCase(SPRITE)) {
-                                loadImg(clazz, currentName, location);
-                            } else if(name.equalsIgnoreCase(SPRITESHEET)) {
-                                loadSpriteMap(clazz, currentName, location, currentDimension);
-                            } else if(name.equalsIgnoreCase(SOUND)) {
-                                loadSound(clazz, currentName, location, soundType);
+                        if(name.equals(ANIMATION)) {
+                            if(frames == null) {
+                                if(!hasFrames) {
+                                    problems.add("Line " + line + ": Animation " + currentName +
+                                            " does not have frames");
+                                }
+                                continue;
+                            }
+                            if(times.length == 1) {
+                                int time = times[0];
+                                times = new int[frames.length];
+                                Arrays.fill(times, time);
+                            } else if(times.length != frames.length) {
+                                problems.add("Line " + line + ": Animation " + currentName +
+                                        " does not have a time for every frame");
+                                continue;
                             }
-                        } catch(Exception e) {
-                            System.out.println("Error in resource:{type =" + name + ' ' +
-                                    ",name =" + currentName + " ,location =" + location + '}');
-                            throw new IOException(e.getMessage(), e);
+                        } else {
+                            frames = new int[0];
+                            times = new int[0];
+                            loop = false;
+                        }
+
+                        XMLEvent next = eventReader.peek();
+                        if(next == null || !next.isCharacters() ||
+                                next.asCharacters().getData().trim().isEmpty()) {
+                            problems.add("Line " + line + ": " + name + ' ' + currentName +
+                                    " does not have a location");
+                            continue;
                         }
+                        String location = eventReader.nextEvent().asCharacters().getData().trim();
 
+                        entries.add(new ResourceEntry(name, currentName, location,
+                                currentDimension, soundType, frames, times, loop));
                     }
                 }
             }
@@ -177,8 +365,114 @@ public class ResourceLoader {
             e.printStackTrace();
             throw new IOException("Xml file could not be read properly");
         }
+        return entries;
+    }
+
+    //returns null if the dimension is malformed
+    private static Dimension parseDimension(String value) {
+        String[] parts = value.split(DIMENSIONSPLIT);
+        if(parts.length < 2) {
+            return null;
+        }
+        try {
+            int width = Integer.parseInt(parts[0].trim());
+            int height = Integer.parseInt(parts[1].trim());
+            if(width <= 0 || height <= 0) {
+                return null;
+            }
+            return new Dimension(width, height);
+        } catch(NumberFormatException ignored) {
+            return null;
+        }
+    }
+
+    /**
+     * Parse a list of numbers like "0-3,6", ranges are only allowed for indices
+     * @param value   the list
+     * @param indices true for indices which can be 0, false for times which have to be positive
+     *
+     * @return the numbers or null if the list is malformed
+     */
+    private static int[] parseList(String value, boolean indices) {
+        List<Integer> numbers = new ArrayList<Integer>();
+        try {
+            for(String part : value.split(LISTSPLIT)) {
+                int split = part.indexOf(RANGESPLIT);
+                int first;
+                int last;
+                if(split > 0 && indices) {
+                    first = Integer.parseInt(part.substring(0, split).trim());
+                    last = Integer.parseInt(part.substring(split + 1).trim());
+                } else {
+                    first = Integer.parseInt(part.trim());
+                    last = first;
+                }
+                if(first < (indices ? 0 : 1) || last < first) {
+                    return null;
+                }
+                for(int number = first; number <= last; number++) {
+                    numbers.add(number);
+                }
+            }
+        } catch(NumberFormatException ignored) {
+            return null;
+        }
+        int[] list = new int[numbers.size()];
+        for(int i = 0; i < list.length; i++) {
+            list[i] = numbers.get(i);
+        }
+        return list;
+    }
 
+    /**
+     * Print all the malformed resources found in a resource file at once
+     * @param problems the descriptions of the malformed resources
+     */
+    static void reportProblems(List<String> problems) {
+        if(problems.isEmpty()) {
+            return;
+        }
+        System.out.println("WARNING: Found " + problems.size() + " malformed resources:");
+        for(String problem : problems) {
+            System.out.println("    " + problem);
+        }
+    }
 
+    /**
+     * Set the directory in which caches of resources are stored when they can't be stored next to
+     * the resources themselves
+     * @param directory the directory or null to not store those caches
+     */
+    public static synchronized void setCacheDirectory(File directory) {
+        cacheDirectory = directory;
+        pixelCache = null;
+    }
+
+    /**
+     * Set the maximum size of the cache of decoded images, when the cache grows larger the images
+     * used the longest ago are removed from it
+     * @param bytes the maximum size in bytes or 0 to not cache decoded images
+     */
+    public static synchronized void setPixelCacheLimit(long bytes) {
+        pixelCacheLimit = bytes;
+        pixelCache = null;
+    }
+
+    //the cache of decoded images or null if it is not used
+    private static PixelCache getPixelCache() {
+        File directory = cacheDirectory;
+        if(pixelCache == null && directory != null && pixelCacheLimit > 0) {
+            pixelCache = new PixelCache(new File(directory, "pixels"), pixelCacheLimit);
+            pixelCache.cleanup();
+        }
+        return pixelCache;
+    }
+
+    /**
+     * @return the directory in which caches are stored or null if they are not stored
+     */
+    public static File getCacheDirectory() {
+        return cacheDirectory;
     }
 
     /**
@@ -186,40 +480,705 @@ public class ResourceLoader {
      * file
      * @throws IOException if any file related operation goes wrong
      */
-    protected static void loadDefaultGameData() throws IOException {
-        loadResources(ResourceLoader.class,
-                ResourceLoader.class.getResourceAsStream("resources.xml"));
+    protected static synchronized void loadDefaultGameData() throws IOException {
+        TexturePack pack = TexturePack.fromClass(ResourceLoader.class);
+        packs.add(0, pack);
+        rebuildIndex(pack);
+        if(bytesSaved > 0) {
+            System.out.println("Shared resources with the same contents, saved " + bytesSaved +
+                    " bytes");
+        }
+    }
+
+    /**
+     * Put a {@link TexturePack} on top of all the other TexturePacks and load the resources it
+     * overwrites
+     * @param pack the TexturePack to add
+     *
+     * @throws IOException if a resource of the new stack could not be loaded
+     */
+    public static synchronized void addTexturePack(TexturePack pack) throws IOException {
+        packs.remove(pack);
+        packs.add(pack);
+        rebuildIndex(pack);
+    }
+
+    /**
+     * Remove a {@link TexturePack} and load the resources it overwrote from the TexturePacks below
+     * @param pack the TexturePack to remove
+     *
+     * @throws IOException if a resource of the new stack could not be loaded
+     */
+    public static synchronized void removeTexturePack(TexturePack pack) throws IOException {
+        if(packs.remove(pack)) {
+            rebuildIndex(pack);
+        }
+    }
+
+    /**
+     * Move a {@link TexturePack} to another place in the stack, only the resources which now come
+     * from another TexturePack are loaded again
+     * @param pack  the TexturePack to move
+     * @param index the new place of the TexturePack, 0 is the bottom of the stack
+     *
+     * @throws IOException if a resource of the new stack could not be loaded
+     */
+    public static synchronized void moveTexturePack(TexturePack pack, int index)
+            throws IOException {
+        if(!packs.remove(pack)) {
+            throw new IllegalArgumentException("TexturePack is not loaded " + pack);
+        }
+        packs.add(Math.max(0, Math.min(index, packs.size())), pack);
+        rebuildIndex(pack);
+    }
+
+    /**
+     * Mount a zip archive as a {@link TexturePack} on top of all the other TexturePacks, the
+     * resources are read from the archive when they are needed without extracting it
+     * @param archive the zip file to mount
+     *
+     * @return the TexturePack of the archive
+     * @throws IOException if the archive could not be opened or a resource of the new stack could
+     *                     not be loaded
+     */
+    public static synchronized TexturePack mountArchive(File archive) throws IOException {
+        TexturePack pack = TexturePack.fromZip(archive);
+        try {
+            addTexturePack(pack);
+        } catch(IOException e) {
+            packs.remove(pack);
+            pack.close();
+            throw e;
+        }
+        return pack;
+    }
+
+    /**
+     * Remove a {@link TexturePack} and close it, after this it can no longer be used
+     * @param pack the TexturePack to remove
+     *
+     * @throws IOException if a resource of the new stack could not be loaded
+     */
+    public static synchronized void unmountArchive(TexturePack pack) throws IOException {
+        try {
+            removeTexturePack(pack);
+        } finally {
+            pack.close();
+        }
+    }
+
+    /**
+     * @return the stack of TexturePacks, the first one is the bottom of the stack
+     */
+    public static synchronized List<TexturePack> getTexturePacks() {
+        return Collections.unmodifiableList(new ArrayList<TexturePack>(packs));
+    }
+
+    /**
+     * Resolve again the resources a TexturePack which was added, removed or moved can change,
+     * load those which now come from another entry or file and unload those no TexturePack
+     * declares anymore
+     * @param changed the TexturePack which was added, removed or moved
+     *
+     * @throws IOException if a resource of the new stack could not be loaded
+     */
+    private static void rebuildIndex(TexturePack changed) throws IOException {
+        //the resources it declares and the ones of which it can hold the file
+        Set<String> affected = new HashSet<String>();
+        for(ResourceEntry entry : changed.getEntries()) {
+            affected.add(entry.getKey());
+        }
+        for(Map.Entry<String, Resolution> resolved : index.entrySet()) {
+            Resolution resolution = resolved.getValue();
+            if(resolution.source == changed || (!isAnimation(resolution.entry) &&
+                    changed.has(resolution.entry.getLocation()))) {
+                affected.add(resolved.getKey());
+            }
+        }
+
+        Map<String, Resolution> newIndex = new HashMap<String, Resolution>(index);
+        //check everything before loading so we don't fail half way
+        List<ResourceEntry> missing = new ArrayList<ResourceEntry>();
+        for(String key : affected) {
+            Resolution resolution = resolve(key);
+            if(resolution == null) {
+                newIndex.remove(key);
+                continue;
+            }
+            if(resolution.source == null && !isAnimation(resolution.entry)) {
+                missing.add(resolution.entry);
+            }
+            newIndex.put(key, resolution);
+        }
+        if(!missing.isEmpty()) {
+            throw new IOException("Could not find the files of resources " + missing);
+        }
+
+        Set<String> changedSheets = new HashSet<String>();
+        for(String key : affected) {
+            Resolution resolution = newIndex.get(key);
+            Resolution old = index.get(key);
+            if(resolution == null) {
+                if(old != null) {
+                    unload(old.entry);
+                }
+                continue;
+            }
+            if(isAnimation(resolution.entry) || resolution.equals(old)) {
+                continue;
+            }
+            //a released resource is loaded from its new file when it is acquired again
+            if(old == null || isLoaded(old.entry)) {
+                load(resolution.entry, resolution.source);
+                if(resolution.entry.getType().equals(SPRITESHEET)) {
+                    changedSheets.add(resolution.entry.getName());
+                }
+            }
+        }
+        //the animations use the sprites of the sheets so they are made again if a sheet changed
+        for(Map.Entry<String, Resolution> resolved : newIndex.entrySet()) {
+            ResourceEntry entry = resolved.getValue().entry;
+            if(!isAnimation(entry) || (!changedSheets.contains(entry.getLocation()) &&
+                    resolved.getValue().equals(index.get(resolved.getKey())))) {
+                continue;
+            }
+            if(!spriteMaps.contains(entry.getLocation()) &&
+                    newIndex.containsKey(SPRITESHEET + ':' + entry.getLocation())) {
+                //the sheet is released, acquiring it makes the animation again
+                continue;
+            }
+            loadAnimation(entry);
+        }
+        index = newIndex;
+    }
+
+    //the entry of the highest TexturePack declaring the resource and the file it uses
+    private static Resolution resolve(String key) throws IOException {
+        for(int i = packs.size() - 1; i >= 0; i--) {
+            ResourceEntry entry = packs.get(i).getEntry(key);
+            if(entry != null) {
+                //an animation has no file, its location is the name of its sheet
+                return new Resolution(entry, isAnimation(entry) ? null :
+                        findSource(entry.getLocation()));
+            }
+        }
+        return null;
+    }
+
+    //false if the resource was released, sounds are released through the SoundHandler
+    private static boolean isLoaded(ResourceEntry entry) {
+        String type = entry.getType();
+        if(type.equals(SPRITE)) {
+            return sprites.contains(entry.getName());
+        } else if(type.equals(SPRITESHEET)) {
+            return spriteMaps.contains(entry.getName());
+        }
+        return true;
+    }
+
+    //remove a resource which is no longer declared by any TexturePack
+    private static void unload(ResourceEntry entry) {
+        String type = entry.getType();
+        if(type.equals(SPRITE)) {
+            sprites.remove(entry.getName());
+        } else if(type.equals(SPRITESHEET)) {
+            spriteMaps.remove(entry.getName());
+        } else if(type.equals(SOUND)) {
+            metrics.remove(SOUND, entry.getName());
+            SoundHandler.removeSound(entry.getName());
+        } else if(type.equals(ANIMATION)) {
+            animations.remove(entry.getName());
+        }
+    }
+
+    private static boolean isAnimation(ResourceEntry entry) {
+        return entry.getType().equals(ANIMATION);
+    }
+
+    private static TexturePack findSource(String location) {
+        for(int i = packs.size() - 1; i >= 0; i--) {
+            if(packs.get(i).has(location)) {
+                return packs.get(i);
+            }
+        }
+        return null;
+    }
+
+    private static void load(ResourceEntry entry, InputStream input) throws IOException {
+        byte[] data;
+        long start = System.nanoTime();
+        try {
+            data = FileUtilities.readAll(input);
+        } catch(Exception e) {
+            System.out.println("Error in resource:" + entry);
+            throw new IOException(e.getMessage(), e);
+        }
+        load(entry, data, System.nanoTime() - start);
+    }
+
+    private static void load(ResourceEntry entry, TexturePack source) throws IOException {
+        long start = System.nanoTime();
+        byte[] data = source.read(entry.getLocation());
+        if(data == null) {
+            throw new IOException("Could not find the file of resource " + entry);
+        }
+        load(entry, data, System.nanoTime() - start);
+    }
+
+    private static void load(ResourceEntry entry, byte[] data, long readTime) throws IOException {
+        //System.out.println("Loading resource " + entry);
+        String type = entry.getType();
+        try {
+            if(type.equalsIgnoreCase(SPRITE)) {
+                loadImg(entry, data, readTime);
+            } else if(type.equalsIgnoreCase(SPRITESHEET)) {
+                loadSpriteMap(entry, data, readTime);
+            } else if(type.equalsIgnoreCase(SOUND)) {
+                loadSound(entry, data, readTime);
+            }
+        } catch(Exception e) {
+            System.out.println("Error in resource:" + entry);
+            throw new IOException(e.getMessage(), e);
+        }
     }
 
     //ADVANCED LOADING
-    private static void loadSpriteMap(Class<?> clazz, String name, String location, Dimension dim)
+    private static void loadSpriteMap(ResourceEntry entry, byte[] data, long readTime)
             throws IOException {
-        if(spriteMaps.containsKey(name)) {
-            System.out.println("WARNING: SpriteSheet being overwritten by {name = " + name +
-                    " location = " + location + '}');
+        long start = System.nanoTime();
+        Dimension dim = entry.getDimension();
+        long hash = ByteUtilities.hash64(data);
+        String sheetKey = hash + DIMENSIONSPLIT + dim.width + DIMENSIONSPLIT + dim.height;
+        SpriteSheet sheet = loadedSheets.get(sheetKey);
+        TextureAtlas atlas = textureAtlas;
+        boolean shared = isImageLoaded(atlas, hash);
+        Sprite image = loadImage(atlas, hash, data);
+        if(sheet == null) {
+            sheet = new SpriteSheet(image, dim);
+            loadedSheets.put(sheetKey, sheet);
         }
-        spriteMaps.put(name, new SpriteSheet(ImageIO.read(getInputStream(location, clazz)), dim));
+        //the sprites are regions of the image so only the image uses memory
+        metrics.add(new ResourceMetrics.Record(entry, data.length, readTime,
+                System.nanoTime() - start, getFootprint(image), isAccelerated(image, hash),
+                shared));
+        spriteMaps.put(entry.getName(), sheet);
+        //free what the overwritten sheet used if nothing else uses it
+        useSheet(entry.getKey(), sheetKey);
+        useImage(entry.getKey(), hash);
     }
 
-    private static void loadImg(Class<?> clazz, String name, String location) throws IOException {
-        if(sprites.containsKey(name)) {
-            System.out.println("WARNING: Image being overwritten by {name = " + name +
-                    " location = " + location + '}');
+    private static void loadImg(ResourceEntry entry, byte[] data, long readTime)
+            throws IOException {
+        long start = System.nanoTime();
+        long hash = ByteUtilities.hash64(data);
+        TextureAtlas atlas = textureAtlas;
+        boolean shared = isImageLoaded(atlas, hash);
+        Sprite sprite = loadImage(atlas, hash, data);
+        metrics.add(new ResourceMetrics.Record(entry, data.length, readTime,
+                System.nanoTime() - start, getFootprint(sprite), isAccelerated(sprite, hash),
+                shared));
+        sprites.put(entry.getName(), sprite);
+        //free what the overwritten sprite used if nothing else uses it
+        useImage(entry.getKey(), hash);
+    }
+
+    private static boolean isImageLoaded(TextureAtlas atlas, long hash) {
+        return atlas == null ? loadedImages.containsKey(hash) : atlasSprites.containsKey(hash);
+    }
+
+    //the sprite drawing the image, packed in the texture atlas if there is one
+    private static Sprite loadImage(TextureAtlas atlas, long hash, byte[] data)
+            throws IOException {
+        if(atlas == null) {
+            return Sprite.fromBufferedImage(decodeImage(hash, data));
+        }
+        Sprite sprite = atlasSprites.get(hash);
+        if(sprite != null) {
+            bytesSaved += data.length + getFootprint(sprite);
+            return sprite;
+        }
+        //the atlas draws a copy on its page so the decoded image is not kept
+        BufferedImage read = readImage(hash, data);
+        sprite = atlas.add(read);
+        read.flush();
+        atlasSprites.put(hash, sprite);
+        return sprite;
+    }
+
+    private static long getFootprint(Sprite sprite) {
+        return (long) sprite.getWidth() * sprite.getHeight() * 4;
+    }
+
+    //a packed image is accelerated when its page is
+    private static boolean isAccelerated(Sprite sprite, long hash) {
+        if(sprite instanceof RegionSprite) {
+            return ImageUtilities.isAccelerated(((RegionSprite) sprite).getImage());
+        }
+        BufferedImage img = loadedImages.get(hash);
+        //an image too large for a page of the atlas is an accelerated copy of its own
+        return img == null || ImageUtilities.isAccelerated(img);
+    }
+
+    /**
+     * Set the {@link TextureAtlas} in which images and sprite sheets loaded after this are packed
+     * <p>Only the packed copy of an image is kept. The regions in a TextureAtlas can't be freed,
+     * so images packed in it stay in memory until the TextureAtlas is no longer used</p>
+     * @param atlas the TextureAtlas to use or null to give every image its own sprite
+     */
+    public static synchronized void setTextureAtlas(TextureAtlas atlas) {
+        textureAtlas = atlas;
+        atlasSprites.clear();
+    }
+
+    /**
+     * @return the TextureAtlas in which images are packed or null if it is not used
+     */
+    public static TextureAtlas getTextureAtlas() {
+        return textureAtlas;
+    }
+
+    //let a resource key use a shared image, the image it used before is freed if it is unused
+    private static void useImage(String key, long hash) {
+        addUse(imageUses, hash, 1);
+        Long old = imageHashes.put(key, hash);
+        if(old != null && addUse(imageUses, old, -1) == 0) {
+            freeImage(old);
+        }
+    }
+
+    //returns false if the resource key used no shared image
+    private static boolean stopUsingImage(String key) {
+        Long hash = imageHashes.remove(key);
+        if(hash == null) {
+            return false;
+        }
+        if(addUse(imageUses, hash, -1) == 0) {
+            freeImage(hash);
+        }
+        return true;
+    }
+
+    //let a resource key use a shared sheet, the sheet it used before is freed if it is unused
+    private static void useSheet(String key, String sheetKey) {
+        addUse(sheetUses, sheetKey, 1);
+        String old = sheetKeys.put(key, sheetKey);
+        if(old != null && addUse(sheetUses, old, -1) == 0) {
+            freeSheet(old);
+        }
+    }
+
+    //returns false if the resource key used no shared sheet
+    private static boolean stopUsingSheet(String key) {
+        String sheetKey = sheetKeys.remove(key);
+        if(sheetKey == null) {
+            return false;
+        }
+        if(addUse(sheetUses, sheetKey, -1) == 0) {
+            freeSheet(sheetKey);
+        }
+        return true;
+    }
+
+    //change the amount of uses of a shared resource and return the new amount
+    private static <K> int addUse(Map<K, Integer> uses, K shared, int change) {
+        Integer count = uses.get(shared);
+        int newCount = (count == null ? 0 : count) + change;
+        if(newCount <= 0) {
+            uses.remove(shared);
+        } else {
+            uses.put(shared, newCount);
+        }
+        return newCount;
+    }
+
+    private static void freeSheet(String sheetKey) {
+        SpriteSheet sheet = loadedSheets.remove(sheetKey);
+        if(sheet != null) {
+            sheet.flush();
+        }
+    }
+
+    //remove and flush a shared image no loaded resource uses anymore
+    private static void freeImage(long hash) {
+        //the region in the atlas can't be freed but the same image should get a new one
+        atlasSprites.remove(hash);
+        BufferedImage img = loadedImages.remove(hash);
+        if(img != null) {
+            img.flush();
+        }
+    }
+
+    //decode the image or share the image already decoded from the same bytes
+    private static BufferedImage decodeImage(long hash, byte[] data) throws IOException {
+        BufferedImage img = loadedImages.get(hash);
+        if(img != null) {
+            bytesSaved += data.length + (long) img.getWidth() * img.getHeight() * 4;
+            return img;
+        }
+        img = ImageUtilities.createAcceleratedCopy(readImage(hash, data));
+        loadedImages.put(hash, img);
+        return img;
+    }
+
+    //decode the image from the pixel cache or the bytes
+    private static BufferedImage readImage(long hash, byte[] data) throws IOException {
+        PixelCache cache = getPixelCache();
+        BufferedImage read = cache == null ? null : cache.read(hash, data.length);
+        if(read == null) {
+            read = ImageIO.read(new ByteArrayInputStream(data));
+            if(read == null) {
+                throw new IOException("Could not decode image");
+            }
+            if(cache != null) {
+                cache.write(hash, data.length, read);
+            }
         }
+        return read;
+    }
 
-        sprites.put(name, Sprite.createAcceleratedSprite(getInputStream(location, clazz)));
+    private static void loadAnimation(ResourceEntry entry) throws IOException {
+        SpriteSheet sheet = spriteMaps.get(entry.getLocation());
+        if(sheet == null) {
+            System.out.println("Error in resource:" + entry);
+            throw new IOException("Animation " + entry.getName() + " uses sprite sheet " +
+                    entry.getLocation() + " which is not loaded");
+        }
+        try {
+            animations.put(entry.getName(), AnimationDefinition
+                    .fromSheet(sheet, entry.getFrames(), entry.getTimes(), entry.isLoop()));
+        } catch(IllegalArgumentException e) {
+            System.out.println("Error in resource:" + entry);
+            throw new IOException(e.getMessage(), e);
+        }
     }
 
     //perhaps move to SoundHandler
-    private static void loadSound(Class<?> clazz, String name, String location, SoundType type) {
-        SoundHandler.addSound(name,
-                new SoundData(new BufferedInputStream(getInputStream(location, clazz)), type));
+    private static void loadSound(ResourceEntry entry, byte[] data, long readTime)
+            throws IOException {
+        long start = System.nanoTime();
+        long hash = ByteUtilities.hash64(data);
+        SoundType type = entry.getSoundType();
+        SoundData sound = loadedSounds.get(hash);
+        boolean shared = sound != null && !sound.isClosed();
+        if(!shared) {
+            sound = new SoundData(new BufferedInputStream(new ByteArrayInputStream(data)), type);
+            loadedSounds.put(hash, sound);
+        } else {
+            bytesSaved += data.length + sound.getSize();
+            if(sound.getType() != type) {
+                sound = new SoundData(sound, type);
+            }
+        }
+        metrics.add(new ResourceMetrics.Record(entry, data.length, readTime,
+                System.nanoTime() - start, sound.getSize(), false, shared));
+        SoundHandler.addSound(entry.getName(), sound);
+    }
+
+    /**
+     * Add a reference to the image with the id given, it will stay loaded until {@link
+     * #releaseSprite(int)} is called as many times as this method <p>Images which are never
+     * acquired stay loaded, an image which was released is loaded again from its TexturePack</p>
+     * @param id the id of the image from {@link #getSpriteId(String)}
+     *
+     * @return the image or {@link Sprite#EMPTY_SPRITE} if the image is not loaded
+     */
+    public static Sprite acquireSprite(int id) {
+        Sprite sprite = sprites.acquire(id);
+        if(sprite == null && reload(SPRITE, sprites.getName(id))) {
+            sprite = sprites.acquire(id);
+        }
+        if(sprite == null) {
+            System.out.println("WARNING FILE IS NOT LOADED YET name = " + sprites.getName(id));
+            return Sprite.EMPTY_SPRITE;
+        }
+        return sprite;
+    }
+
+    /**
+     * Remove a reference to the image with the id given, when the last reference is removed the
+     * image is removed and its memory is freed
+     * @param id the id of the image
+     *
+     * @return true if this was the last reference and the image is removed
+     */
+    public static synchronized boolean releaseSprite(int id) {
+        return sprites.release(id);
+    }
+
+    /**
+     * Add a reference to the {@link SpriteSheet} with the id given, it will stay loaded until
+     * {@link #releaseSpriteSheet(int)} is called as many times as this method, a SpriteSheet which
+     * was released is loaded again from its TexturePack
+     * @param id the id of the SpriteSheet from {@link #getSpriteSheetId(String)}
+     *
+     * @return the SpriteSheet or null if it is not loaded
+     */
+    public static SpriteSheet acquireSpriteSheet(int id) {
+        SpriteSheet sheet = spriteMaps.acquire(id);
+        if(sheet == null && reload(SPRITESHEET, spriteMaps.getName(id))) {
+            sheet = spriteMaps.acquire(id);
+        }
+        return sheet;
+    }
+
+    /**
+     * Load a resource which was released again from the TexturePack it was resolved to
+     * @param type the type of the resource
+     * @param name the name of the resource
+     *
+     * @return true if the resource is loaded again
+     */
+    private static synchronized boolean reload(String type, String name) {
+        Resolution resolution = name == null ? null : index.get(type + ':' + name);
+        if(resolution == null) {
+            return false;
+        }
+        try {
+            load(resolution.entry, resolution.source);
+            if(type.equals(SPRITESHEET)) {
+                //the animations of the sheet still use the sprites of the released one
+                for(Resolution animation : index.values()) {
+                    if(isAnimation(animation.entry) &&
+                            animation.entry.getLocation().equals(name)) {
+                        loadAnimation(animation.entry);
+                    }
+                }
+            }
+            return true;
+        } catch(IOException e) {
+            System.out.println("WARNING: Could not load released resource again " + e);
+            return false;
+        }
+    }
+
+    /**
+     * Remove a reference to the {@link SpriteSheet} with the id given, when the last reference is
+     * removed the SpriteSheet is removed and its memory is freed
+     * @param id the id of the SpriteSheet
+     *
+     * @return true if this was the last reference and the SpriteSheet is removed
+     */
+    public static synchronized boolean releaseSpriteSheet(int id) {
+        return spriteMaps.release(id);
+    }
+
+    /**
+     * Set whether references which are not released in a scene should be reported
+     * @param tracking true to report the references
+     *
+     * @see #beginScene()
+     * @see #endScene()
+     */
+    public static void setLeakTracking(boolean tracking) {
+        leakTracking = tracking;
+    }
+
+    /**
+     * Remember the references of all resources, when leak tracking is on {@link #endScene()} will
+     * report all the references added after this which are not released
+     */
+    public static synchronized void beginScene() {
+        if(!leakTracking) {
+            return;
+        }
+        sceneSprites = sprites.getReferences();
+        sceneSheets = spriteMaps.getReferences();
+        sceneSounds = SoundHandler.getSoundReferences();
+    }
+
+    /**
+     * Report all the references which are added since {@link #beginScene()} and not released, only
+     * when leak tracking is on
+     * @return a description of every leaked reference, empty if leak tracking is off
+     */
+    public static synchronized List<String> endScene() {
+        List<String> leaks = new ArrayList<String>();
+        if(!leakTracking || sceneSprites == null) {
+            return leaks;
+        }
+        for(String leak : sprites.findLeaks(sceneSprites)) {
+            leaks.add("sprite " + leak);
+        }
+        for(String leak : spriteMaps.findLeaks(sceneSheets)) {
+            leaks.add("spritesheet " + leak);
+        }
+        for(String leak : SoundHandler.findSoundLeaks(sceneSounds)) {
+            leaks.add("sound " + leak);
+        }
+        sceneSprites = null;
+        if(!leaks.isEmpty()) {
+            System.out.println("WARNING: " + leaks.size() + " resources leaked in scene:");
+            for(String leak : leaks) {
+                System.out.println("    " + leak);
+            }
+        }
+        return leaks;
+    }
+
+    /**
+     * Get the load metrics of every resource loaded, this tells which resources take the longest
+     * to load or use the most memory
+     * @return the metrics of the resources loaded
+     */
+    public static ResourceMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Write the load metrics of every resource loaded to a csv file when the game shuts down
+     * @param file the file to write to or null to not write the metrics
+     */
+    public static void setMetricsDumpFile(File file) {
+        synchronized(metrics) {
+            if(metricsDumpFile == null && file != null) {
+                Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        File file = metricsDumpFile;
+                        if(file != null) {
+                            metrics.writeCsv(file);
+                        }
+                    }
+                }));
+            }
+            metricsDumpFile = file;
+        }
+    }
+
+    /**
+     * Get the amount of bytes which did not have to be read or decoded again because the same file
+     * contents were already loaded under another name
+     * @return the amount of bytes saved by sharing loaded images and sounds
+     */
+    public static long getBytesSaved() {
+        return bytesSaved;
     }
 
     private static InputStream getInputStream(String location, Class<?> defaultClass) {
         return defaultClass.getResourceAsStream(location);
     }
 
+    /**
+     * Get the id of the {@link SpriteSheet} under the name, the id can be resolved before the
+     * SpriteSheet is loaded
+     * @param name the name of the SpriteSheet
+     *
+     * @return the id to use with {@link #getSpriteSheet(int)}
+     */
+    public static int getSpriteSheetId(String name) {
+        return spriteMaps.getId(name);
+    }
+
+    /**
+     * Get the {@link SpriteSheet} with the id given
+     * @param id the id of the SpriteSheet from {@link #getSpriteSheetId(String)}
+     *
+     * @return the SpriteSheet found or null if it is not loaded
+     */
+    public static SpriteSheet getSpriteSheet(int id) {
+        return spriteMaps.get(id);
+    }
+
     /**
      * Get the {@link SpriteSheet} under the name
      * @param name the name of the SpriteSheet
@@ -237,7 +1196,48 @@ public class ResourceLoader {
      * @return true if a SpriteSheet under that name is loaded
      */
     public static boolean hasSpriteSheet(String name) {
-        return spriteMaps.containsKey(name);
+        return spriteMaps.contains(name);
+    }
+
+    /**
+     * Get the id of the {@link AnimationDefinition} under the name, the id can be resolved before
+     * the animation is loaded
+     * @param name the name of the animation
+     *
+     * @return the id to use with {@link #getAnimation(int)}
+     */
+    public static int getAnimationId(String name) {
+        return animations.getId(name);
+    }
+
+    /**
+     * Get the {@link AnimationDefinition} with the id given
+     * @param id the id of the animation from {@link #getAnimationId(String)}
+     *
+     * @return the animation found or null if it is not loaded
+     */
+    public static AnimationDefinition getAnimation(int id) {
+        return animations.get(id);
+    }
+
+    /**
+     * Get the {@link AnimationDefinition} under the name
+     * @param name the name of the animation
+     *
+     * @return the animation found or null if it is not loaded
+     */
+    public static AnimationDefinition getAnimation(String name) {
+        return animations.get(name);
+    }
+
+    /**
+     * Check if an animation of that name is already loaded
+     * @param name the name of the animation
+     *
+     * @return true if an animation under that name is loaded
+     */
+    public static boolean hasAnimation(String name) {
+        return animations.contains(name);
     }
 
     /**
@@ -247,22 +1247,80 @@ public class ResourceLoader {
      * @return true if a sprite under that name is loaded
      */
     public static boolean hasSprite(String name) {
-        return sprites.containsKey(name);
+        return sprites.contains(name);
+    }
+
+    /**
+     * Get the id of the image by the given name, the id can be resolved before the image is loaded
+     * <p>Use this once and then {@link #getSprite(int)} to get the image every frame</p>
+     * @param name the name of the image
+     *
+     * @return the id to use with {@link #getSprite(int)}
+     */
+    public static int getSpriteId(String name) {
+        return sprites.getId(name);
+    }
+
+    /**
+     * Get the image with the id given
+     * @param id the id of the image from {@link #getSpriteId(String)}
+     *
+     * @return the image or {@link Sprite#EMPTY_SPRITE} if the image is not loaded (or doesn't
+     * exists)
+     */
+    public static Sprite getSprite(int id) {
+        Sprite sprite = sprites.get(id);
+        if(sprite == null) {
+            System.out.println("WARNING FILE IS NOT LOADED YET name = " + sprites.getName(id));
+            return Sprite.EMPTY_SPRITE;
+        }
+        return sprite;
     }
 
     /**
-     * Get the image by the given name
+     * Get the image by the given name <p>This has to look up the name every call, when getting an
+     * image often use {@link #getSpriteId(String)} and {@link #getSprite(int)}</p>
      * @param name the name of the image requested
      *
      * @return the image or {@link Sprite#EMPTY_SPRITE} if the image is not loaded (or doesn't
      * exists)
      */
     public static Sprite getSprite(String name) {
-        if(!sprites.containsKey(name)) {
+        Sprite sprite = sprites.get(name);
+        if(sprite == null) {
             System.out.println("WARNING FILE IS NOT LOADED YET name = " + name);
             return Sprite.EMPTY_SPRITE;
         }
-        return sprites.get(name);
+        return sprite;
+    }
+
+    //the entry which won for a resource and the TexturePack its file is read from
+    private static class Resolution {
+
+        private final ResourceEntry entry;
+        private final TexturePack source;
+
+        private Resolution(ResourceEntry entry, TexturePack source) {
+            this.entry = entry;
+            this.source = source;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(!(o instanceof Resolution)) {
+                return false;
+            }
+            Resolution that = (Resolution) o;
+            return entry == that.entry && source == that.source;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * entry.hashCode() + (source != null ? source.hashCode() : 0);
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,227 @@
+package example.game;
+
+import example.game.util.files.FileUtilities;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ResourceMetrics hold how long every resource took to load and how much memory it uses, it
+ * is filled by the {@link ResourceLoader} and available from {@link ResourceLoader#getMetrics()}
+ * <p>Only the resources which are loaded now have metrics, a resource loaded again replaces its
+ * metrics and a resource which is released or unloaded loses them.</p>
+ * @author davidot
+ */
+public class ResourceMetrics {
+
+    private static final String CSV_HEADER =
+            "type,name,location,readBytes,readMs,decodeMs,footprintBytes,accelerated,shared";
+
+    //by type and name of the resource in the order they were loaded
+    private final Map<String, Record> records = new LinkedHashMap<String, Record>();
+
+    synchronized void add(Record record) {
+        String key = record.type + ':' + record.name;
+        //loaded again so it moves to the end
+        records.remove(key);
+        records.put(key, record);
+    }
+
+    synchronized void remove(String type, String name) {
+        records.remove(type + ':' + name);
+    }
+
+    /**
+     * @return the metrics of every resource loaded in the order they were loaded
+     */
+    public synchronized List<Record> getRecords() {
+        return new ArrayList<Record>(records.values());
+    }
+
+    /**
+     * Get the resources which use the most memory
+     * @param amount the maximum amount of resources to get
+     *
+     * @return the resources sorted by the memory they use, the largest first
+     */
+    public List<Record> getLargest(int amount) {
+        return getTop(amount, new Comparator<Record>() {
+            @Override
+            public int compare(Record o1, Record o2) {
+                return Long.compare(o2.footprint, o1.footprint);
+            }
+        });
+    }
+
+    /**
+     * Get the resources which took the longest to read and decode
+     * @param amount the maximum amount of resources to get
+     *
+     * @return the resources sorted by the time they took to load, the slowest first
+     */
+    public List<Record> getSlowest(int amount) {
+        return getTop(amount, new Comparator<Record>() {
+            @Override
+            public int compare(Record o1, Record o2) {
+                return Long.compare(o2.getLoadTime(), o1.getLoadTime());
+            }
+        });
+    }
+
+    private List<Record> getTop(int amount, Comparator<Record> comparator) {
+        List<Record> sorted = getRecords();
+        Collections.sort(sorted, comparator);
+        return sorted.subList(0, Math.min(amount, sorted.size()));
+    }
+
+    /**
+     * @return the memory used by all resources loaded, resources which are shared are counted once
+     */
+    public synchronized long getTotalFootprint() {
+        long total = 0;
+        for(Record record : records.values()) {
+            if(!record.shared) {
+                total += record.footprint;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return the time in nanoseconds it took to read and decode all resources loaded
+     */
+    public synchronized long getTotalLoadTime() {
+        long total = 0;
+        for(Record record : records.values()) {
+            total += record.getLoadTime();
+        }
+        return total;
+    }
+
+    /**
+     * Write all the metrics to a file with one line per resource as comma separated values
+     * @param file the file to write to
+     *
+     * @return whether the file was written
+     */
+    public boolean writeCsv(File file) {
+        StringBuilder builder = new StringBuilder(CSV_HEADER).append(Game.LINE_SEPARATOR_CHAR);
+        for(Record record : getRecords()) {
+            builder.append(record.type).append(',')
+                    .append(escape(record.name)).append(',')
+                    .append(escape(record.location)).append(',')
+                    .append(record.readBytes).append(',')
+                    .append(record.readTime / 1000000.0).append(',')
+                    .append(record.decodeTime / 1000000.0).append(',')
+                    .append(record.footprint).append(',')
+                    .append(record.accelerated).append(',')
+                    .append(record.shared).append(Game.LINE_SEPARATOR_CHAR);
+        }
+        return FileUtilities.writeStringToFile(file, builder.toString());
+    }
+
+    private static String escape(String value) {
+        if(value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * The metrics of one loaded resource
+     */
+    public static class Record {
+
+        private final String type;
+        private final String name;
+        private final String location;
+        private final long readBytes;
+        private final long readTime;
+        private final long decodeTime;
+        private final long footprint;
+        private final boolean accelerated;
+        private final boolean shared;
+
+        /**
+         * Create the metrics of a loaded resource
+         * @param entry       the resource loaded
+         * @param readBytes   the amount of bytes read from the file
+         * @param readTime    the time in nanoseconds it took to read the file
+         * @param decodeTime  the time in nanoseconds it took to decode the file
+         * @param footprint   the amount of bytes the decoded resource uses in memory
+         * @param accelerated whether the resource is accelerated by the graphics card
+         * @param shared      whether the decoded resource is shared with another resource
+         */
+        Record(ResourceEntry entry, long readBytes, long readTime, long decodeTime,
+               long footprint, boolean accelerated, boolean shared) {
+            this.type = entry.getType();
+            this.name = entry.getName();
+            this.location = entry.getLocation();
+            this.readBytes = readBytes;
+            this.readTime = readTime;
+            this.decodeTime = decodeTime;
+            this.footprint = footprint;
+            this.accelerated = accelerated;
+            this.shared = shared;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public long getReadBytes() {
+            return readBytes;
+        }
+
+        public long getReadTime() {
+            return readTime;
+        }
+
+        public long getDecodeTime() {
+            return decodeTime;
+        }
+
+        /**
+         * @return the time in nanoseconds it took to read and decode this resource
+         */
+        public long getLoadTime() {
+            return readTime + decodeTime;
+        }
+
+        /**
+         * @return the amount of bytes the decoded resource uses in memory, pixels times 4 for
+         * images and the length of the sound data for sounds
+         */
+        public long getFootprint() {
+            return footprint;
+        }
+
+        public boolean isAccelerated() {
+            return accelerated;
+        }
+
+        public boolean isShared() {
+            return shared;
+        }
+
+        @Override
+        public String toString() {
+            return "{type =" + type + " ,name =" + name + " ,bytes =" + readBytes + " ,load =" +
+                    getLoadTime() / 1000000.0 + "ms ,footprint =" + footprint + '}';
+        }
+    }
+
+}
@@ -0,0 +1,330 @@
+package example.game;
+
+import example.game.util.ByteUtilities;
+import example.game.util.files.FileUtilities;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A TexturePack is a layer of resources for the {@link ResourceLoader}, it can be a directory, a
+ * zip file or the resources next to a class. <p>A TexturePack can declare resources in its own
+ * {@link #MANIFEST} and can replace the files of the layers below it by having a file at the same
+ * location</p>
+ * @author davidot
+ */
+public abstract class TexturePack implements Closeable {
+
+    /**
+     * The name of the resource file in the root of every TexturePack
+     */
+    public static final String MANIFEST = "resources.xml";
+
+    private final String name;
+    private List<ResourceEntry> entries;
+    private Map<String, ResourceEntry> entriesByKey;
+
+    /**
+     * Create a TexturePack with a name
+     * @param name the name of the TexturePack
+     */
+    protected TexturePack(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Create a TexturePack from a directory
+     * @param directory the directory in which the files are located
+     *
+     * @return the TexturePack created
+     */
+    public static TexturePack fromDirectory(File directory) {
+        return new DirectoryPack(directory);
+    }
+
+    /**
+     * Create a TexturePack from a zip file, the zip file is mounted as a {@link FileSystem} so
+     * files are read from it directly without extracting them
+     * @param zip the zip file in which the files are located
+     *
+     * @return the TexturePack created
+     * @throws IOException if the zip file could not be opened
+     */
+    public static TexturePack fromZip(File zip) throws IOException {
+        return new ZipPack(zip);
+    }
+
+    /**
+     * Create a TexturePack from the resources next to a class
+     * @param clazz the class from which to use the relative paths
+     *
+     * @return the TexturePack created
+     */
+    public static TexturePack fromClass(Class<?> clazz) {
+        return new ClassPack(clazz);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Open the file at the location given
+     * @param location the location of the file inside this TexturePack
+     *
+     * @return the InputStream of the file or null if this TexturePack does not have the file
+     * @throws IOException if the file could not be opened
+     */
+    public abstract InputStream open(String location) throws IOException;
+
+    /**
+     * Check if this TexturePack has a file at the location given
+     * @param location the location of the file inside this TexturePack
+     *
+     * @return true if the file is in this TexturePack
+     */
+    public abstract boolean has(String location);
+
+    /**
+     * Read the whole file at the location given
+     * @param location the location of the file inside this TexturePack
+     *
+     * @return the contents of the file or null if this TexturePack does not have the file
+     * @throws IOException if the file could not be read
+     */
+    public byte[] read(String location) throws IOException {
+        InputStream input = open(location);
+        if(input == null) {
+            return null;
+        }
+        try {
+            return FileUtilities.readAll(input);
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Close the files this TexturePack holds open, after this it can no longer be used
+     * @throws IOException if the files could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        //nothing open by default
+    }
+
+    /**
+     * Get the resources declared in the {@link #MANIFEST} of this TexturePack, the file is only
+     * read the first time
+     * @return the resources declared, empty if the TexturePack has no resource file
+     * @throws IOException if the resource file could not be read
+     */
+    List<ResourceEntry> getEntries() throws IOException {
+        if(entries == null) {
+            File file = getManifestFile();
+            if(file != null) {
+                entries = ManifestCache.load(file);
+                return entries;
+            }
+            InputStream input = open(MANIFEST);
+            if(input == null) {
+                entries = Collections.emptyList();
+            } else {
+                try {
+                    entries = ManifestCache.load(FileUtilities.readAll(input), getCacheFile());
+                } finally {
+                    input.close();
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Get the resource declared under a key in the {@link #MANIFEST} of this TexturePack, when a
+     * key is declared more than once the first one is used
+     * @param key the key of the resource from {@link ResourceEntry#getKey()}
+     *
+     * @return the resource or null if this TexturePack does not declare it
+     * @throws IOException if the resource file could not be read
+     */
+    ResourceEntry getEntry(String key) throws IOException {
+        if(entriesByKey == null) {
+            Map<String, ResourceEntry> byKey = new HashMap<String, ResourceEntry>();
+            for(ResourceEntry entry : getEntries()) {
+                if(!byKey.containsKey(entry.getKey())) {
+                    byKey.put(entry.getKey(), entry);
+                }
+            }
+            entriesByKey = byKey;
+        }
+        return entriesByKey.get(key);
+    }
+
+    /**
+     * Get the {@link #MANIFEST} of this TexturePack as a file so its cache can be stored next to it
+     * @return the resource file or null if it is not a file
+     */
+    protected File getManifestFile() {
+        return null;
+    }
+
+    //the cache for when the manifest is not a file
+    private File getCacheFile() {
+        File directory = ResourceLoader.getCacheDirectory();
+        if(directory == null) {
+            return null;
+        }
+        return new File(directory, Long.toHexString(ByteUtilities.hash64(
+                getCacheId().getBytes(FileUtilities.charset))) + '-' + MANIFEST +
+                ManifestCache.SUFFIX);
+    }
+
+    /**
+     * Get the text which tells this TexturePack apart from the others when storing its cache in the
+     * cache directory
+     * @return the text to name the cache after, the name by default
+     */
+    protected String getCacheId() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "TexturePack{name = " + name + '}';
+    }
+
+    private static class DirectoryPack extends TexturePack {
+
+        private final File directory;
+
+        private DirectoryPack(File directory) {
+            super(directory.getName());
+            this.directory = directory;
+        }
+
+        @Override
+        public InputStream open(String location) throws IOException {
+            File file = new File(directory, location);
+            if(!file.isFile()) {
+                return null;
+            }
+            return new FileInputStream(file);
+        }
+
+        @Override
+        public boolean has(String location) {
+            return new File(directory, location).isFile();
+        }
+
+        @Override
+        public byte[] read(String location) throws IOException {
+            File file = new File(directory, location);
+            if(!file.isFile()) {
+                return null;
+            }
+            return FileUtilities.readAll(file.toPath());
+        }
+
+        @Override
+        protected File getManifestFile() {
+            File file = new File(directory, MANIFEST);
+            return file.isFile() ? file : null;
+        }
+    }
+
+    private static class ZipPack extends TexturePack {
+
+        private final File file;
+        private final FileSystem zip;
+
+        private ZipPack(File file) throws IOException {
+            super(file.getName());
+            this.file = file;
+            zip = FileSystems.newFileSystem(file.toPath(), (ClassLoader) null);
+        }
+
+        @Override
+        protected String getCacheId() {
+            //zip files with the same name can be in different directories
+            return file.getAbsolutePath();
+        }
+
+        @Override
+        public InputStream open(String location) throws IOException {
+            Path path = zip.getPath(location);
+            if(!Files.isRegularFile(path)) {
+                return null;
+            }
+            return Files.newInputStream(path);
+        }
+
+        @Override
+        public boolean has(String location) {
+            return Files.isRegularFile(zip.getPath(location));
+        }
+
+        @Override
+        public byte[] read(String location) throws IOException {
+            Path path = zip.getPath(location);
+            if(!Files.isRegularFile(path)) {
+                return null;
+            }
+            //stored entries are read straight from the archive with positioned reads
+            return FileUtilities.readAll(path);
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.close();
+        }
+    }
+
+    private static class ClassPack extends TexturePack {
+
+        private final Class<?> clazz;
+
+        private ClassPack(Class<?> clazz) {
+            super(clazz.getName());
+            this.clazz = clazz;
+        }
+
+        @Override
+        public InputStream open(String location) {
+            return clazz.getResourceAsStream(location);
+        }
+
+        @Override
+        public boolean has(String location) {
+            return clazz.getResource(location) != null;
+        }
+
+        @Override
+        protected File getManifestFile() {
+            //when not running from a jar the resources are plain files
+            URL url = clazz.getResource(MANIFEST);
+            if(url == null || !url.getProtocol().equals("file")) {
+                return null;
+            }
+            try {
+                return new File(url.toURI());
+            } catch(URISyntaxException e) {
+                return null;
+            }
+        }
+    }
+
+}
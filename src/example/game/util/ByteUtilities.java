@@ -74,4 +74,41 @@ public class ByteUtilities {
         return num;
     }
 
+    /**
+     * Calculate a 64 bit hash of the bytes given, this is not a cryptographic hash but it is fast
+     * and has very few collisions so it can be used to check if two files have the same contents
+     * @param data the bytes to hash
+     *
+     * @return the hash of the bytes
+     */
+    public static long hash64(byte[] data) {
+        long hash = 0x9E3779B97F4A7C15L ^ data.length;
+        int i = 0;
+        //mix 8 bytes at a time
+        for(; i + 8 <= data.length; i += 8) {
+            long k = (data[i] & 0xFFL) | (data[i + 1] & 0xFFL) << 8 |
+                    (data[i + 2] & 0xFFL) << 16 | (data[i + 3] & 0xFFL) << 24 |
+                    (data[i + 4] & 0xFFL) << 32 | (data[i + 5] & 0xFFL) << 40 |
+                    (data[i + 6] & 0xFFL) << 48 | (data[i + 7] & 0xFFL) << 56;
+            k *= 0x87C37B91114253D5L;
+            k = Long.rotateLeft(k, 31);
+            k *= 0x4CF5AD432745937FL;
+            hash ^= k;
+            hash = Long.rotateLeft(hash, 27) * 5 + 0x52DCE729;
+        }
+        //the last few bytes
+        long tail = 0;
+        for(int shift = 0; i < data.length; i++, shift += 8) {
+            tail |= (data[i] & 0xFFL) << shift;
+        }
+        hash ^= tail * 0x87C37B91114253D5L;
+        //final mix so every bit of the input changes every bit of the output
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
 }
@@ -1,12 +1,15 @@
 package example.game.util;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * A useful class to easily implement memoization in form of a cached {@link HashMap} <p> Make sure
  * you have implemented a version of {@link Object#hashCode()} else the internal HashMap could be
- * inconsistent. </p>
+ * inconsistent. </p> <p>The cache can be given a maximum size, when it is full the value used the
+ * longest ago is removed and given to {@link #onEvict(Object, Object)}. The amount of hits and
+ * misses are counted to check if the cache helps.</p>
  * @param <K> The key Class
  * @param <V> The value Class
  *
@@ -14,7 +17,46 @@ import java.util.Map;
  */
 public abstract class CachedHashMap<K, V> {
 
-    private Map<K, V> cache = new HashMap<K, V>();
+    /**
+     * The maximum size of a cache which is never full
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private final int maxSize;
+    private final Map<K, V> cache;
+    private long hits; //0
+    private long misses; //0
+    private long evictions; //0
+
+    /**
+     * Create a CachedHashMap which never removes values
+     */
+    public CachedHashMap() {
+        this(UNBOUNDED);
+    }
+
+    /**
+     * Create a CachedHashMap which holds at most the amount of values given
+     * @param maxSize the maximum amount of values
+     */
+    public CachedHashMap(int maxSize) {
+        if(maxSize <= 0) {
+            throw new IllegalArgumentException("Max size has to be positive");
+        }
+        this.maxSize = maxSize;
+        //in access order so the eldest entry is the one used the longest ago
+        cache = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if(size() <= CachedHashMap.this.maxSize) {
+                    return false;
+                }
+                evictions++;
+                onEvict(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
 
     /**
      * Get the Value which can be calculated for the given Key
@@ -22,11 +64,16 @@ public abstract class CachedHashMap<K, V> {
      *
      * @return the value
      */
-    public V get(K key) {
-        if(!cache.containsKey(key)) {
-            cache.put(key, calcValue(key));
+    public synchronized V get(K key) {
+        V value = cache.get(key);
+        if(value != null || cache.containsKey(key)) {
+            hits++;
+            return value;
         }
-        return cache.get(key);
+        misses++;
+        value = calcValue(key);
+        cache.put(key, value);
+        return value;
     }
 
     /**
@@ -37,4 +84,61 @@ public abstract class CachedHashMap<K, V> {
      */
     public abstract V calcValue(K key);
 
+    /**
+     * Called when a value is removed because the cache is full, override this to free what the
+     * value holds
+     * @param key   the key of the value
+     * @param value the value removed
+     */
+    protected void onEvict(K key, V value) {
+        //nothing to free by default
+    }
+
+    /**
+     * Remove the value of a key so it is calculated again the next time
+     * @param key the key
+     */
+    public synchronized void remove(K key) {
+        cache.remove(key);
+    }
+
+    /**
+     * Remove all the values
+     */
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    /**
+     * @return the amount of values stored
+     */
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the amount of times a value was already stored
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the amount of times a value had to be calculated
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the amount of values removed because the cache was full
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
 }
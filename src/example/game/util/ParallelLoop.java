@@ -0,0 +1,203 @@
+package example.game.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A ParallelLoop runs the body of a loop over a range of indices on several threads <p>The range is
+ * split in one chunk per thread, the calling thread runs the first chunk itself and waits for the
+ * others. The threads are made once and wait for the next run, so a run does not allocate anything.
+ * They are daemon threads so they do not keep the game running. A range smaller than the minimum
+ * chunk size is run on the calling thread only.</p> <p>One run happens at a time, a body should not
+ * run the same ParallelLoop.</p>
+ * @author davidot
+ */
+public class ParallelLoop {
+
+    private static final AtomicInteger pools = new AtomicInteger();
+
+    private final int threads;
+    private final Worker[] workers;
+    //guards the fields below, the caller waits on it for the chunks of the workers
+    private final Object lock = new Object();
+    private int pending; //0
+    private Throwable failure;
+    private volatile boolean shutdown; //false
+
+    /**
+     * Create a ParallelLoop with a thread for every processor
+     */
+    public ParallelLoop() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a ParallelLoop
+     * @param threads the amount of threads to run on, including the calling thread
+     */
+    public ParallelLoop(int threads) {
+        if(threads <= 0) {
+            throw new IllegalArgumentException("Needs at least one thread");
+        }
+        this.threads = threads;
+        workers = new Worker[threads - 1];
+        int pool = pools.incrementAndGet();
+        for(int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker();
+            Thread thread = new Thread(workers[i], "ParallelLoop-" + pool + "-" + (i + 1));
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Run the body over a range and wait until every chunk is done, an exception thrown by a chunk
+     * is thrown again here after all chunks are done
+     * @param start    the first index
+     * @param end      the index after the last one
+     * @param minChunk the smallest amount of indices worth giving to another thread
+     * @param body     the body of the loop
+     */
+    public synchronized void run(int start, int end, int minChunk, Body body) {
+        int count = end - start;
+        if(count <= 0) {
+            return;
+        }
+        int chunkSize = Math.max(minChunk, 1);
+        int chunks = Math.min(threads, (count + chunkSize - 1) / chunkSize);
+        if(chunks <= 1 || shutdown) {
+            body.run(start, end);
+            return;
+        }
+        synchronized(lock) {
+            pending = chunks - 1;
+            failure = null;
+        }
+        for(int i = 1; i < chunks; i++) {
+            workers[i - 1].submit(body, start + (int) ((long) count * i / chunks),
+                    start + (int) ((long) count * (i + 1) / chunks));
+        }
+        Throwable t = null;
+        try {
+            body.run(start, start + count / chunks);
+        } catch(Throwable e) {
+            t = e;
+        }
+        boolean interrupted = false;
+        synchronized(lock) {
+            while(pending > 0) {
+                try {
+                    lock.wait();
+                } catch(InterruptedException e) {
+                    //the chunks use the data of the caller so they have to finish first
+                    interrupted = true;
+                }
+            }
+            if(t == null) {
+                t = failure;
+            }
+            failure = null;
+        }
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if(t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if(t instanceof Error) {
+            throw (Error) t;
+        } else if(t != null) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    //called by a worker when its chunk is done
+    private void done(Throwable t) {
+        synchronized(lock) {
+            if(t != null && failure == null) {
+                failure = t;
+            }
+            pending--;
+            if(pending == 0) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Stop the threads, the loop runs on the calling thread only after this
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        for(Worker worker : workers) {
+            worker.wake();
+        }
+    }
+
+    /**
+     * The body of a loop run by a {@link ParallelLoop}
+     */
+    public interface Body {
+
+        /**
+         * Run the body for a part of the range, this is called from several threads at once
+         * @param start the first index of the part
+         * @param end   the index after the last one of the part
+         */
+        void run(int start, int end);
+    }
+
+    //a thread which waits for a chunk, runs it and waits again
+    private class Worker implements Runnable {
+
+        private Body body;
+        private int start;
+        private int end;
+
+        private synchronized void submit(Body body, int start, int end) {
+            this.body = body;
+            this.start = start;
+            this.end = end;
+            notifyAll();
+        }
+
+        private synchronized void wake() {
+            notifyAll();
+        }
+
+        @Override
+        public void run() {
+            while(true) {
+                Body body;
+                int start;
+                int end;
+                synchronized(this) {
+                    while(this.body == null) {
+                        if(shutdown) {
+                            return;
+                        }
+                        try {
+                            wait();
+                        } catch(InterruptedException ignored) {
+                            //only stopped by shutdown
+                        }
+                    }
+                    body = this.body;
+                    start = this.start;
+                    end = this.end;
+                    this.body = null;
+                }
+                Throwable failure = null;
+                try {
+                    body.run(start, end);
+                } catch(Throwable t) {
+                    failure = t;
+                }
+                done(failure);
+            }
+        }
+    }
+
+}
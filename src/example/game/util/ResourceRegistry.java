@@ -0,0 +1,313 @@
+package example.game.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A ResourceRegistry stores resources under a name and gives every name a dense integer id <p> The
+ * id of a name can be resolved once with {@link #getId(String)} and after that the resource can be
+ * found with {@link #get(int)} which is a single array load instead of a {@link Map} lookup. An id
+ * can be resolved before the resource is loaded, it will point to the resource once it is
+ * loaded.</p> <p>Getting resources never locks so it can be done from any thread while other
+ * threads store resources, a resource stored is visible to every thread calling a get method after
+ * {@link #put(String, Object)} returns.</p> <p>Resources can be reference counted with {@link
+ * #acquire(int)} and {@link #release(int)}, when the last reference is released the resource is
+ * removed and {@link #onRelease(String, Object)} is called. Resources which are never acquired
+ * stay until they are overwritten.</p>
+ * @param <V> The resource Class
+ *
+ * @author davidot
+ */
+public class ResourceRegistry<V> {
+
+    /**
+     * The id returned when a name is not known to the registry
+     */
+    public static final int NO_ID = -1;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+    //replaced when growing, the elements are only written while holding the lock of this registry
+    private volatile AtomicReferenceArray<V> values;
+    private volatile AtomicReferenceArray<String> names;
+    private volatile int size; //0
+    //only used while holding the lock
+    private int[] references;
+
+    /**
+     * Create a ResourceRegistry with the default capacity
+     */
+    public ResourceRegistry() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a ResourceRegistry with a starting capacity
+     * @param capacity the amount of ids which can be given out before the table has to grow
+     */
+    public ResourceRegistry(int capacity) {
+        values = new AtomicReferenceArray<V>(Math.max(1, capacity));
+        names = new AtomicReferenceArray<String>(values.length());
+        references = new int[values.length()];
+    }
+
+    /**
+     * Get the id of the name given, if the name has no id yet a new one is made
+     * @param name the name of the resource
+     *
+     * @return the id of the resource
+     */
+    public int getId(String name) {
+        Integer id = ids.get(name);
+        if(id != null) {
+            return id;
+        }
+        synchronized(this) {
+            //another thread might have made it while we waited
+            id = ids.get(name);
+            if(id != null) {
+                return id;
+            }
+            int newId = size;
+            if(newId == values.length()) {
+                grow(newId * 2);
+            }
+            names.set(newId, name);
+            size = newId + 1;
+            ids.put(name, newId);
+            return newId;
+        }
+    }
+
+    //only called while holding the lock
+    private void grow(int capacity) {
+        AtomicReferenceArray<V> newValues = new AtomicReferenceArray<V>(capacity);
+        AtomicReferenceArray<String> newNames = new AtomicReferenceArray<String>(capacity);
+        for(int i = 0; i < size; i++) {
+            newValues.set(i, values.get(i));
+            newNames.set(i, names.get(i));
+        }
+        names = newNames;
+        values = newValues;
+        references = Arrays.copyOf(references, capacity);
+    }
+
+    /**
+     * Get the id of the name given without making a new one
+     * @param name the name of the resource
+     *
+     * @return the id of the resource or {@link #NO_ID} if the name has no id
+     */
+    public int findId(String name) {
+        Integer id = ids.get(name);
+        return id == null ? NO_ID : id;
+    }
+
+    /**
+     * Get the resource with the id given
+     * @param id the id of the resource
+     *
+     * @return the resource or null if it is not loaded
+     */
+    public V get(int id) {
+        AtomicReferenceArray<V> values = this.values;
+        if(id < 0 || id >= values.length()) {
+            return null;
+        }
+        return values.get(id);
+    }
+
+    /**
+     * Get the resource under the name given, this is the slow path use {@link #get(int)} when
+     * getting a resource often
+     * @param name the name of the resource
+     *
+     * @return the resource or null if it is not loaded
+     */
+    public V get(String name) {
+        return get(findId(name));
+    }
+
+    /**
+     * Check if a resource is loaded under the name given
+     * @param name the name of the resource
+     *
+     * @return true if a resource is loaded under the name
+     */
+    public boolean contains(String name) {
+        return get(name) != null;
+    }
+
+    /**
+     * Store a resource under the name given
+     * @param name  the name of the resource
+     * @param value the resource
+     *
+     * @return the resource which was stored under the name before or null
+     */
+    public synchronized V put(String name, V value) {
+        //getting the id can grow the table so the table is only read after it
+        int id = getId(name);
+        return values.getAndSet(id, value);
+    }
+
+    /**
+     * Get the resource with the id given and add a reference to it, it will stay loaded until
+     * {@link #release(int)} is called as many times as this method
+     * @param id the id of the resource
+     *
+     * @return the resource or null if it is not loaded, in which case no reference is added
+     */
+    public synchronized V acquire(int id) {
+        V value = get(id);
+        if(value != null) {
+            references[id]++;
+        }
+        return value;
+    }
+
+    /**
+     * Remove a reference to a resource, when the last reference is removed the resource is removed
+     * from this registry and {@link #onRelease(String, Object)} is called
+     * @param id the id of the resource
+     *
+     * @return true if this was the last reference and the resource is removed
+     */
+    public boolean release(int id) {
+        V value;
+        synchronized(this) {
+            if(id < 0 || id >= size || references[id] <= 0) {
+                System.out.println("WARNING: Releasing resource which is not acquired {name = " +
+                        getName(id) + '}');
+                return false;
+            }
+            references[id]--;
+            if(references[id] > 0) {
+                return false;
+            }
+            value = values.getAndSet(id, null);
+        }
+        //called without the lock so the release can take other locks
+        if(value != null) {
+            onRelease(getName(id), value);
+        }
+        return true;
+    }
+
+    /**
+     * Remove the resource stored under the name given even if it still has references, {@link
+     * #onRelease(String, Object)} is called for it <p>The references are kept so releasing them
+     * later is not reported.</p>
+     * @param name the name of the resource
+     *
+     * @return the resource removed or null if none was stored under the name
+     */
+    public V remove(String name) {
+        int id = findId(name);
+        if(id == NO_ID) {
+            return null;
+        }
+        V value;
+        synchronized(this) {
+            value = values.getAndSet(id, null);
+        }
+        //called without the lock so the release can take other locks
+        if(value != null) {
+            onRelease(name, value);
+        }
+        return value;
+    }
+
+    /**
+     * Called when the last reference to a resource is released and it is removed, override this to
+     * free what the resource holds
+     * @param name  the name the resource was stored under
+     * @param value the resource removed
+     */
+    protected void onRelease(String name, V value) {
+        //nothing to free by default
+    }
+
+    /**
+     * Check if a resource is stored under any name, resources can be stored under multiple names
+     * when they are shared
+     * @param value the resource to look for
+     *
+     * @return true if the resource is stored under a name
+     */
+    public boolean isStored(V value) {
+        AtomicReferenceArray<V> values = this.values;
+        for(int i = 0; i < values.length(); i++) {
+            if(values.get(i) == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the amount of references to a resource
+     * @param id the id of the resource
+     *
+     * @return the amount of references
+     */
+    public synchronized int getReferences(int id) {
+        if(id < 0 || id >= size) {
+            return 0;
+        }
+        return references[id];
+    }
+
+    /**
+     * Get the amount of references of all the resources, so it can later be checked with {@link
+     * #findLeaks(int[])}
+     * @return the amount of references by id
+     */
+    public synchronized int[] getReferences() {
+        return Arrays.copyOf(references, size);
+    }
+
+    /**
+     * Find the resources which have more references than before
+     * @param before the amount of references by id from {@link #getReferences()}
+     *
+     * @return a description of every resource which has more references
+     */
+    public synchronized List<String> findLeaks(int[] before) {
+        List<String> leaks = new ArrayList<String>();
+        for(int i = 0; i < size; i++) {
+            int leaked = references[i] - (i < before.length ? before[i] : 0);
+            if(leaked > 0) {
+                leaks.add(names.get(i) + " (" + leaked + " references)");
+            }
+        }
+        return leaks;
+    }
+
+    /**
+     * Get the name which belongs to the id given
+     * @param id the id
+     *
+     * @return the name or null if the id was never given out
+     */
+    public String getName(int id) {
+        AtomicReferenceArray<String> names = this.names;
+        if(id < 0 || id >= names.length()) {
+            return null;
+        }
+        return names.get(id);
+    }
+
+    /**
+     * @return the amount of ids given out
+     */
+    public int size() {
+        return size;
+    }
+
+}
@@ -3,6 +3,7 @@ package example.game.util.files;
 import example.game.Game;
 
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -11,7 +12,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * A Class with methods to easily read and write to files and streams.
@@ -24,6 +29,9 @@ public class FileUtilities {
      */
     public static final Charset charset = Charset.forName(Game.CHARSET_NAME);
 
+    //size of the buffer used when reading streams
+    private static final int BUFFER_SIZE = 8192;
+
     /**
      * Get the contents of a file in {@link String} form
      * @param file the file to read
@@ -136,4 +144,61 @@ public class FileUtilities {
         return false;
     }
 
+    /**
+     * Read everything from the {@link InputStream} until the end, unlike {@link
+     * #getStringFromInputStream(InputStream)} this does not stop at {@link InputStream#available()}
+     * <p>This does not close the stream</p>
+     * @param inputStream the input stream
+     *
+     * @return all the bytes read
+     * @throws IOException if the stream could not be read
+     */
+    public static byte[] readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream out =
+                new ByteArrayOutputStream(Math.max(BUFFER_SIZE, inputStream.available()));
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while((read = inputStream.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Read the whole file at the {@link Path}, this works for files of any {@link
+     * java.nio.file.FileSystem} like files inside a zip file
+     * @param path the path of the file
+     *
+     * @return all the bytes of the file
+     * @throws IOException if the file could not be read
+     */
+    public static byte[] readAll(Path path) throws IOException {
+        SeekableByteChannel channel = Files.newByteChannel(path);
+        try {
+            long size = channel.size();
+            if(size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to read " + path);
+            }
+            if(size < 0) {
+                //the size is not known so read it like a stream
+                InputStream input = Files.newInputStream(path);
+                try {
+                    return readAll(input);
+                } finally {
+                    input.close();
+                }
+            }
+            //read straight into an array of the right size
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while(buffer.hasRemaining()) {
+                if(channel.read(buffer) < 0) {
+                    throw new IOException("File ended before its size " + path);
+                }
+            }
+            return buffer.array();
+        } finally {
+            channel.close();
+        }
+    }
+
 }
@@ -1,27 +1,17 @@
 package example.game.util.graphics;
 
-import java.util.Random;
-
 /**
- * A Animation holds a set of Sprites to draw with the settings given
+ * A Animation holds a set of Sprites to draw with the settings given <p>The state of the animation
+ * is kept in an {@link AnimationClock} which ticks all of its animations at once. Animations made
+ * without a clock use the shared clock and have to be ticked one by one.</p>
  * @author davidot
  */
 public class Animation extends ProxySprite {
 
     private static final int DEFAULT_FRAME_PER_IMG = 15;
-    private boolean running; //false
-    private boolean loop; //false
-    private int framePerImg = 15;
-    private int currentFrame; //0
-    private int defaultImg; //0
-    private Sprite[] images;
-    private int currentImage; //0
-    private int startImg; //0
-    private int[] customTimes;
-    private boolean customTime; //false
-    private boolean customLoop; //false
-    private int timeBetween; //0
-    private boolean rand;
+    private final AnimationClock clock;
+    private final int slot;
+    private final Sprite[] images;
 
     /**
      * Animation is a series of frames one of which is the default image, the animation when ticked
@@ -67,18 +57,55 @@ public class Animation extends ProxySprite {
      * @param framePerImg the amount of ticks within frames
      */
     public Animation(Sprite[] img, int framePerImg) {
+        this(AnimationClock.getShared(), img, framePerImg);
+    }
 
-        images = img;
-        if(images == null) {
-            images = new Sprite[0];
+    /**
+     * Animation is a series of frames one of which is the default image, the animation is ticked by
+     * the clock given <p> By default the time between frames is {@link
+     * Animation#DEFAULT_FRAME_PER_IMG} </p>
+     * @param clock the clock which ticks this animation
+     * @param img   the images which are the frames in this animation
+     */
+    public Animation(AnimationClock clock, Sprite[] img) {
+        this(clock, img, DEFAULT_FRAME_PER_IMG);
+    }
+
+    /**
+     * Animation is a series of frames one of which is the default image, the animation is ticked by
+     * the clock given
+     * @param clock       the clock which ticks this animation
+     * @param img         the images which are the frames in this animation
+     * @param framePerImg the amount of ticks within frames
+     */
+    public Animation(AnimationClock clock, Sprite[] img, int framePerImg) {
+        if(img == null) {
+            img = new Sprite[0];
         }
-        for(int i = 0; i < images.length; i++) {
+        for(int i = 0; i < img.length; i++) {
             //correct any null frames
-            if(images[i] == null) {
-                images[i] = EMPTY_SPRITE;
+            if(img[i] == null) {
+                img[i] = EMPTY_SPRITE;
             }
         }
-        this.framePerImg = framePerImg;
+        images = img;
+        this.clock = clock;
+        slot = clock.allocate(this, images.length, framePerImg);
+    }
+
+    //changes the flags of the slot, locked so it is not lost when the clock grows
+    private void setFlag(byte flag, boolean value) {
+        synchronized(clock) {
+            if(value) {
+                clock.flags[slot] |= flag;
+            } else {
+                clock.flags[slot] &= ~flag;
+            }
+        }
+    }
+
+    private boolean hasFlag(byte flag) {
+        return (clock.flags[slot] & flag) != 0;
     }
 
     /**
@@ -86,22 +113,24 @@ public class Animation extends ProxySprite {
      * counter
      */
     public void reset() {
-        currentImage = startImg;
-        currentFrame = 0;
+        synchronized(clock) {
+            clock.image[slot] = clock.startImage[slot];
+            clock.frame[slot] = 0;
+        }
     }
 
     /**
      * Starts or restarts the animation, does not change the current frame
      */
     public void start() {
-        running = true;
+        setFlag(AnimationClock.RUNNING, true);
     }
 
     /**
      * Pauses the animation, does not change the current frame
      */
     public void pause() {
-        running = false;
+        setFlag(AnimationClock.RUNNING, false);
     }
 
     /**
@@ -109,45 +138,29 @@ public class Animation extends ProxySprite {
      * @see Animation#reset()
      */
     public void stop() {
-        running = false;
-        reset();
+        synchronized(clock) {
+            pause();
+            reset();
+        }
     }
 
     @Override
     public Sprite getSprite() {
-        if(!running) {
-            return images[defaultImg];
+        if(!hasFlag(AnimationClock.RUNNING)) {
+            return images[clock.defaultImage[slot]];
         } else {
-            return images[currentImage];
+            return images[clock.image[slot]];
         }
     }
 
     /**
      * Will perform the calculations for this animation, so the current frame can be different after
-     * this method is called
+     * this method is called <p>Only needed for animations of the shared clock, an animation of
+     * another clock is ticked again by this.</p>
+     * @see AnimationClock#tick()
      */
     public void tick() {
-        if(!running) {
-            return;
-        }
-        currentFrame++;
-        if(customTime ? currentFrame > customTimes[currentImage] : currentFrame > framePerImg) {
-            currentImage++;
-            currentFrame = 0;
-            if(currentImage >= images.length) {
-                currentImage = startImg;
-                if(!loop) {
-                    currentImage = defaultImg;
-                    running = false;
-                }
-                if(customLoop) {
-                    currentFrame = -(rand ? new Random().nextInt(timeBetween) : timeBetween);
-                }
-            }
-            currentImage = (currentImage >= images.length ? 0 : currentImage);
-
-
-        }
+        clock.tick(slot);
     }
 
 
@@ -159,12 +172,14 @@ public class Animation extends ProxySprite {
      * @return returns the object for easy initialization
      */
     public Animation setCustomFrameTime(int[] time) {
-        customTime = true;
         if(time.length < images.length) {
             System.out.println(
                     "Custom time is shorter than amount of images animation, this will crash");
         }
-        customTimes = time;
+        synchronized(clock) {
+            clock.customTimes[slot] = time;
+            setFlag(AnimationClock.CUSTOM_TIME, true);
+        }
         return this;
     }
 
@@ -172,7 +187,7 @@ public class Animation extends ProxySprite {
      * @return the number of the start image
      */
     public int getStartImg() {
-        return startImg;
+        return clock.startImage[slot];
     }
 
 
@@ -183,7 +198,9 @@ public class Animation extends ProxySprite {
      * @return returns the object for easy initialization
      */
     public Animation setStartImg(int startImg) {
-        this.startImg = startImg;
+        synchronized(clock) {
+            clock.startImage[slot] = startImg;
+        }
         return this;
     }
 
@@ -192,7 +209,7 @@ public class Animation extends ProxySprite {
      * @return the number of the default image
      */
     public int getDefaultImg() {
-        return defaultImg;
+        return clock.defaultImage[slot];
     }
 
     /**
@@ -204,7 +221,9 @@ public class Animation extends ProxySprite {
         if(defaultImg < 0 || defaultImg >= images.length) {
             return this;
         }
-        this.defaultImg = defaultImg;
+        synchronized(clock) {
+            clock.defaultImage[slot] = defaultImg;
+        }
         return this;
     }
 
@@ -212,7 +231,7 @@ public class Animation extends ProxySprite {
      * @return the default frames per image
      */
     public int getFramePerImg() {
-        return framePerImg;
+        return clock.framesPerImage[slot];
     }
 
     /**
@@ -223,7 +242,9 @@ public class Animation extends ProxySprite {
      * @see Animation#setCustomFrameTime(int[])
      */
     public Animation setFramePerImg(int framePerImg) {
-        this.framePerImg = framePerImg;
+        synchronized(clock) {
+            clock.framesPerImage[slot] = framePerImg;
+        }
         return this;
     }
 
@@ -231,7 +252,7 @@ public class Animation extends ProxySprite {
      * @return whether the animation is currently running
      */
     public boolean isRunning() {
-        return running;
+        return hasFlag(AnimationClock.RUNNING);
     }
 
     /**
@@ -240,7 +261,7 @@ public class Animation extends ProxySprite {
      * @see Animation#isCustomLoop()
      */
     public boolean isLoop() {
-        return loop;
+        return hasFlag(AnimationClock.LOOP);
     }
 
     /**
@@ -249,7 +270,7 @@ public class Animation extends ProxySprite {
      * @return returns the object for easy initialization
      */
     public Animation setLoop(boolean loop) {
-        this.loop = loop;
+        setFlag(AnimationClock.LOOP, loop);
         return this;
     }
 
@@ -258,7 +279,7 @@ public class Animation extends ProxySprite {
      * @return whether the animation has a custom loop
      */
     public boolean isCustomLoop() {
-        return customLoop;
+        return hasFlag(AnimationClock.CUSTOM_LOOP);
     }
 
     /**
@@ -271,14 +292,22 @@ public class Animation extends ProxySprite {
      * @return returns the object for easy initialization
      */
     public Animation customLoop(int timeBetween, boolean rand) {
-        loop = true;
-        customLoop = true;
-        this.timeBetween = timeBetween;
-        this.rand = rand;
-
+        synchronized(clock) {
+            clock.timeBetween[slot] = timeBetween;
+            setFlag(AnimationClock.LOOP, true);
+            setFlag(AnimationClock.CUSTOM_LOOP, true);
+            setFlag(AnimationClock.RANDOM, rand);
+        }
         return this;
     }
 
+    /**
+     * @return the clock which holds the state of this animation
+     */
+    public AnimationClock getClock() {
+        return clock;
+    }
+
     @Override
     public int getHeight() {
         return images[0].getHeight();
@@ -0,0 +1,238 @@
+package example.game.util.graphics;
+
+import example.game.util.ParallelLoop;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An AnimationClock holds the state of many {@link Animation}s and ticks all of them at once <p>The
+ * state of every animation is a slot in a set of arrays, an Animation only knows its clock and
+ * slot. A tick walks over the arrays without touching the Animation objects, with a {@link
+ * ParallelLoop} a lot of animations are ticked on several threads. The slot of an Animation which
+ * is no longer used is given to the next one. The clock also counts its ticks as the time for
+ * {@link AnimationPlayer}s.</p> <p>A clock should be ticked and changed by one thread at a time,
+ * except for making Animations which can be done from any thread.</p>
+ * @author davidot
+ */
+public class AnimationClock {
+
+    /**
+     * The smallest amount of animations given to a thread of the {@link ParallelLoop}
+     */
+    public static final int PARALLEL_CHUNK = 4096;
+
+    static final byte RUNNING = 1;
+    static final byte LOOP = 2;
+    static final byte CUSTOM_TIME = 4;
+    static final byte CUSTOM_LOOP = 8;
+    static final byte RANDOM = 16;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final AnimationClock shared = new AnimationClock();
+
+    //the state of the animations, an index is the slot of an animation
+    byte[] flags = new byte[INITIAL_CAPACITY];
+    int[] frame = new int[INITIAL_CAPACITY];
+    int[] image = new int[INITIAL_CAPACITY];
+    int[] imageCount = new int[INITIAL_CAPACITY];
+    int[] startImage = new int[INITIAL_CAPACITY];
+    int[] defaultImage = new int[INITIAL_CAPACITY];
+    int[] framesPerImage = new int[INITIAL_CAPACITY];
+    int[] timeBetween = new int[INITIAL_CAPACITY];
+    int[][] customTimes = new int[INITIAL_CAPACITY][];
+
+    private Slot[] owners = new Slot[INITIAL_CAPACITY];
+    private final ReferenceQueue<Animation> released = new ReferenceQueue<Animation>();
+    private int[] free = new int[INITIAL_CAPACITY];
+    private int freeCount; //0
+    //the slots after this one were never used
+    private int used; //0
+    private ParallelLoop parallelLoop;
+    //the amount of times all animations were ticked
+    private volatile long time; //0
+    private final ParallelLoop.Body tickBody = new ParallelLoop.Body() {
+        @Override
+        public void run(int start, int end) {
+            tick(start, end);
+        }
+    };
+
+    /**
+     * The clock of the Animations made without a clock, it is never ticked as a whole so those
+     * Animations have to be ticked one by one with {@link Animation#tick()}
+     * @return the shared clock
+     */
+    public static AnimationClock getShared() {
+        return shared;
+    }
+
+    /**
+     * Give an Animation a slot, the slot is free again after the Animation is garbage collected
+     * @param animation   the animation
+     * @param images      the amount of images of the animation
+     * @param framePerImg the amount of ticks per image
+     *
+     * @return the slot
+     */
+    synchronized int allocate(Animation animation, int images, int framePerImg) {
+        reclaim();
+        int slot;
+        if(freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            if(used == flags.length) {
+                grow(used * 2);
+            }
+            slot = used++;
+        }
+        owners[slot] = new Slot(animation, released, slot);
+        flags[slot] = 0;
+        frame[slot] = 0;
+        image[slot] = 0;
+        imageCount[slot] = images;
+        startImage[slot] = 0;
+        defaultImage[slot] = 0;
+        framesPerImage[slot] = framePerImg;
+        timeBetween[slot] = 0;
+        customTimes[slot] = null;
+        return slot;
+    }
+
+    //frees the slots of the animations which were garbage collected
+    private void reclaim() {
+        Slot slot;
+        while((slot = (Slot) released.poll()) != null) {
+            int index = slot.index;
+            if(owners[index] != slot) {
+                continue;
+            }
+            owners[index] = null;
+            //a free slot is skipped by a tick
+            flags[index] = 0;
+            customTimes[index] = null;
+            if(freeCount == free.length) {
+                free = Arrays.copyOf(free, freeCount * 2);
+            }
+            free[freeCount++] = index;
+        }
+    }
+
+    private void grow(int capacity) {
+        flags = Arrays.copyOf(flags, capacity);
+        frame = Arrays.copyOf(frame, capacity);
+        image = Arrays.copyOf(image, capacity);
+        imageCount = Arrays.copyOf(imageCount, capacity);
+        startImage = Arrays.copyOf(startImage, capacity);
+        defaultImage = Arrays.copyOf(defaultImage, capacity);
+        framesPerImage = Arrays.copyOf(framesPerImage, capacity);
+        timeBetween = Arrays.copyOf(timeBetween, capacity);
+        customTimes = Arrays.copyOf(customTimes, capacity);
+        owners = Arrays.copyOf(owners, capacity);
+    }
+
+    /**
+     * Tick all the running animations of this clock, on several threads if a {@link ParallelLoop}
+     * is set and there are enough animations
+     */
+    public synchronized void tick() {
+        time++;
+        reclaim();
+        ParallelLoop loop = parallelLoop;
+        if(loop == null) {
+            tick(0, used);
+        } else {
+            loop.run(0, used, PARALLEL_CHUNK, tickBody);
+        }
+    }
+
+    /**
+     * Tick one animation
+     * @param slot the slot of the animation
+     */
+    synchronized void tick(int slot) {
+        tick(slot, slot + 1);
+    }
+
+    //the animations only change their own slots so parts can be ticked at the same time
+    private void tick(int start, int end) {
+        byte[] flags = this.flags;
+        int[] frame = this.frame;
+        int[] image = this.image;
+        int[] imageCount = this.imageCount;
+        int[] framesPerImage = this.framesPerImage;
+        for(int i = start; i < end; i++) {
+            int flag = flags[i];
+            if((flag & RUNNING) == 0) {
+                continue;
+            }
+            int currentFrame = ++frame[i];
+            int time = (flag & CUSTOM_TIME) != 0 ? customTimes[i][image[i]] : framesPerImage[i];
+            if(currentFrame > time) {
+                nextImage(i, flag, imageCount[i]);
+            }
+        }
+    }
+
+    private void nextImage(int slot, int flag, int images) {
+        int currentImage = image[slot] + 1;
+        frame[slot] = 0;
+        if(currentImage >= images) {
+            currentImage = startImage[slot];
+            if((flag & LOOP) == 0) {
+                currentImage = defaultImage[slot];
+                flags[slot] = (byte) (flag & ~RUNNING);
+            }
+            if((flag & CUSTOM_LOOP) != 0) {
+                frame[slot] = -((flag & RANDOM) != 0 ?
+                        ThreadLocalRandom.current().nextInt(timeBetween[slot]) :
+                        timeBetween[slot]);
+            }
+        }
+        image[slot] = currentImage >= images ? 0 : currentImage;
+    }
+
+    /**
+     * Get the time of this clock, used by {@link AnimationPlayer}s to find their frame <p>Ticking a
+     * single Animation does not change the time, so the time of the shared clock does not
+     * change.</p>
+     * @return the amount of times {@link #tick()} was called
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Set the loop used to tick on several threads
+     * @param parallelLoop the loop or null to tick on the calling thread
+     */
+    public synchronized void setParallelLoop(ParallelLoop parallelLoop) {
+        this.parallelLoop = parallelLoop;
+    }
+
+    public synchronized ParallelLoop getParallelLoop() {
+        return parallelLoop;
+    }
+
+    /**
+     * @return the amount of animations which have a slot, including the ones garbage collected
+     * since the last tick
+     */
+    public synchronized int size() {
+        return used - freeCount;
+    }
+
+    //the animation is only weakly reachable so the slot can be freed
+    private static class Slot extends WeakReference<Animation> {
+
+        private final int index;
+
+        private Slot(Animation animation, ReferenceQueue<Animation> queue, int index) {
+            super(animation, queue);
+            this.index = index;
+        }
+    }
+
+}
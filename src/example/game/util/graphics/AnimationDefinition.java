@@ -0,0 +1,210 @@
+package example.game.util.graphics;
+
+import java.util.Arrays;
+
+/**
+ * An AnimationDefinition is the frames and timing of an animation without any playback state, so
+ * one definition is shared by everything playing the same animation <p>The times of the frames are
+ * added up to a timeline once, the frame at a tick is then found with a division when all frames
+ * take the same time or a binary search otherwise. Definitions can be declared in the resource file
+ * and played with an {@link AnimationPlayer}.</p>
+ * @author davidot
+ */
+public class AnimationDefinition {
+
+    /**
+     * The default amount of ticks a frame is shown
+     */
+    public static final int DEFAULT_FRAME_TIME = 15;
+
+    private final Sprite[] frames;
+    //the tick at which every frame ends, counted from the start of the animation
+    private final int[] ends;
+    //the time of every frame when they are all the same, 0 otherwise
+    private final int frameTime;
+    private final boolean loop;
+
+    /**
+     * Create an AnimationDefinition in which every frame takes the same time
+     * @param frames    the sprites of the frames
+     * @param frameTime the amount of ticks every frame is shown
+     * @param loop      whether the animation starts again after the last frame
+     */
+    public AnimationDefinition(Sprite[] frames, int frameTime, boolean loop) {
+        this(frames, fill(frames.length, frameTime), loop);
+    }
+
+    /**
+     * Create an AnimationDefinition
+     * @param frames the sprites of the frames
+     * @param times  the amount of ticks every frame is shown
+     * @param loop   whether the animation starts again after the last frame
+     */
+    public AnimationDefinition(Sprite[] frames, int[] times, boolean loop) {
+        if(frames.length == 0) {
+            throw new IllegalArgumentException("Animation needs at least one frame");
+        }
+        if(times.length != frames.length) {
+            throw new IllegalArgumentException("Animation needs a time for every frame");
+        }
+        this.frames = frames.clone();
+        for(int i = 0; i < this.frames.length; i++) {
+            if(this.frames[i] == null) {
+                this.frames[i] = Sprite.EMPTY_SPRITE;
+            }
+        }
+        ends = new int[times.length];
+        long end = 0;
+        boolean same = true;
+        for(int i = 0; i < times.length; i++) {
+            if(times[i] <= 0) {
+                throw new IllegalArgumentException("Time of frame " + i + " has to be positive");
+            }
+            end += times[i];
+            if(end > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Animation is too long");
+            }
+            ends[i] = (int) end;
+            same &= times[i] == times[0];
+        }
+        frameTime = same ? times[0] : 0;
+        this.loop = loop;
+    }
+
+    /**
+     * Create an AnimationDefinition from sprites of a {@link SpriteSheet}
+     * @param sheet   the sheet with the sprites
+     * @param indices the index in the sheet of every frame
+     * @param times   the amount of ticks every frame is shown
+     * @param loop    whether the animation starts again after the last frame
+     *
+     * @return the AnimationDefinition
+     */
+    public static AnimationDefinition fromSheet(SpriteSheet sheet, int[] indices, int[] times,
+                                                boolean loop) {
+        Sprite[] frames = new Sprite[indices.length];
+        for(int i = 0; i < indices.length; i++) {
+            if(indices[i] < 0 || indices[i] >= sheet.getSpriteAmount()) {
+                throw new IllegalArgumentException("No sprite " + indices[i] + " in the sheet");
+            }
+            frames[i] = sheet.getSprite(indices[i]);
+        }
+        return new AnimationDefinition(frames, times, loop);
+    }
+
+    private static int[] fill(int length, int time) {
+        int[] times = new int[length];
+        Arrays.fill(times, time);
+        return times;
+    }
+
+    /**
+     * Get the index of the frame shown a number of ticks after the start
+     * @param tick the ticks since the start, before the start the first frame is shown
+     *
+     * @return the index of the frame, the last frame after the end when not looping
+     */
+    public int getFrameIndex(long tick) {
+        int length = getLength();
+        int time;
+        if(tick < 0) {
+            time = 0;
+        } else if(tick >= length) {
+            if(!loop) {
+                return frames.length - 1;
+            }
+            time = (int) (tick % length);
+        } else {
+            time = (int) tick;
+        }
+        if(frameTime > 0) {
+            return time / frameTime;
+        }
+        //the first frame which ends after the time
+        int low = 0;
+        int high = ends.length - 1;
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(ends[middle] <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the sprite shown a number of ticks after the start
+     * @param tick the ticks since the start
+     *
+     * @return the sprite of the frame
+     */
+    public Sprite getFrame(long tick) {
+        return frames[getFrameIndex(tick)];
+    }
+
+    /**
+     * @param tick the ticks since the start
+     *
+     * @return true if the animation does not loop and the last frame is over
+     */
+    public boolean isFinished(long tick) {
+        return !loop && tick >= getLength();
+    }
+
+    /**
+     * @param index the index of the frame
+     *
+     * @return the sprite of the frame
+     */
+    public Sprite getSprite(int index) {
+        return frames[index];
+    }
+
+    /**
+     * @param index the index of the frame
+     *
+     * @return the amount of ticks the frame is shown
+     */
+    public int getFrameTime(int index) {
+        return index == 0 ? ends[0] : ends[index] - ends[index - 1];
+    }
+
+    public int getFrameAmount() {
+        return frames.length;
+    }
+
+    /**
+     * @return the amount of ticks of all frames together
+     */
+    public int getLength() {
+        return ends[ends.length - 1];
+    }
+
+    public boolean isLoop() {
+        return loop;
+    }
+
+    /**
+     * @return the largest width of the frames
+     */
+    public int getWidth() {
+        int width = 0;
+        for(Sprite frame : frames) {
+            width = Math.max(width, frame.getWidth());
+        }
+        return width;
+    }
+
+    /**
+     * @return the largest height of the frames
+     */
+    public int getHeight() {
+        int height = 0;
+        for(Sprite frame : frames) {
+            height = Math.max(height, frame.getHeight());
+        }
+        return height;
+    }
+}
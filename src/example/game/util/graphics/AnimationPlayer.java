@@ -0,0 +1,84 @@
+package example.game.util.graphics;
+
+/**
+ * An AnimationPlayer plays an {@link AnimationDefinition} on the time of an {@link AnimationClock}
+ * <p>A player only holds the definition, the clock and the tick it started at, the frame to draw
+ * is looked up from the time of the clock when it is drawn. So nothing has to be ticked per
+ * player and many players can share one definition.</p>
+ * @author davidot
+ */
+public class AnimationPlayer extends ProxySprite {
+
+    private final AnimationClock clock;
+    private AnimationDefinition definition;
+    private long start;
+
+    /**
+     * Create an AnimationPlayer which starts playing now
+     * @param definition the animation to play
+     * @param clock      the clock whose time is used
+     */
+    public AnimationPlayer(AnimationDefinition definition, AnimationClock clock) {
+        if(definition == null) {
+            throw new IllegalArgumentException("Definition is null");
+        }
+        this.definition = definition;
+        this.clock = clock;
+        start = clock.getTime();
+    }
+
+    @Override
+    public Sprite getSprite() {
+        return definition.getFrame(clock.getTime() - start);
+    }
+
+    /**
+     * Play the animation from the first frame
+     */
+    public void restart() {
+        start = clock.getTime();
+    }
+
+    /**
+     * Play another animation from its first frame, the same animation keeps playing
+     * @param definition the animation to play
+     */
+    public void play(AnimationDefinition definition) {
+        if(definition == null) {
+            throw new IllegalArgumentException("Definition is null");
+        }
+        if(this.definition != definition) {
+            this.definition = definition;
+            restart();
+        }
+    }
+
+    /**
+     * @return the index of the frame shown now
+     */
+    public int getFrameIndex() {
+        return definition.getFrameIndex(clock.getTime() - start);
+    }
+
+    /**
+     * @return true if the animation does not loop and the last frame is over
+     */
+    public boolean isFinished() {
+        return definition.isFinished(clock.getTime() - start);
+    }
+
+    public AnimationDefinition getDefinition() {
+        return definition;
+    }
+
+    public AnimationClock getClock() {
+        return clock;
+    }
+
+    /**
+     * @return the time of the clock at which the animation started
+     */
+    public long getStart() {
+        return start;
+    }
+}
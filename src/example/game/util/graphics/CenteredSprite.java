@@ -27,6 +27,15 @@ public class CenteredSprite extends NormalSprite {
                 sy1, sx2, sy2);
     }
 
+    @Override
+    public void render(SoftwareRenderer renderer, int dx1, int dy1, int dx2, int dy2, int sx1,
+                       int sy1, int sx2, int sy2) {
+        int halfWidth = getWidth() / 2;
+        int halfHeight = getHeight() / 2;
+        super.render(renderer, dx1 - halfWidth, dy1 - halfHeight, dx2 - halfWidth,
+                dy2 - halfHeight, sx1, sy1, sx2, sy2);
+    }
+
     @Override
     public void renderRotated(Graphics2D g, int x, int y, int angle, double xScale, double yScale,
                               int xOff, int yOff) {
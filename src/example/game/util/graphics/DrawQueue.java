@@ -0,0 +1,249 @@
+package example.game.util.graphics;
+
+import java.awt.Graphics2D;
+import java.util.Arrays;
+
+/**
+ * A DrawQueue collects sprite draws and draws them sorted on layer and depth instead of in the
+ * order they were added <p>Draws on a lower layer are drawn first, within a layer the ones with a
+ * lower depth are drawn first, for a top-down game the depth is usually the y coordinate of the
+ * bottom of the sprite. Draws with the same layer and depth keep the order they were added in.</p>
+ * <p>The layer and depth are packed in one int key and the draws are sorted with a radix sort on
+ * the bytes of the keys, which takes linear time. The arrays only grow, so after a few frames
+ * adding, sorting and drawing does not allocate anything. A DrawQueue should only be used by one
+ * thread at a time.</p>
+ * @author davidot
+ */
+public class DrawQueue {
+
+    /**
+     * The highest layer, layers go from 0 to this
+     */
+    public static final int MAX_LAYER = 255;
+    /**
+     * The lowest depth, lower depths are drawn as this depth
+     */
+    public static final int MIN_DEPTH = -(1 << 23);
+    /**
+     * The highest depth, higher depths are drawn as this depth
+     */
+    public static final int MAX_DEPTH = (1 << 23) - 1;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    private Sprite[] sprites = new Sprite[INITIAL_CAPACITY];
+    private int[] x = new int[INITIAL_CAPACITY];
+    private int[] y = new int[INITIAL_CAPACITY];
+    //-1 for the size of the sprite
+    private int[] width = new int[INITIAL_CAPACITY];
+    private int[] height = new int[INITIAL_CAPACITY];
+    private int[] angle = new int[INITIAL_CAPACITY];
+    private int[] keys = new int[INITIAL_CAPACITY];
+    //the draws in sorted order and the buffers the sort moves them between
+    private int[] order = new int[INITIAL_CAPACITY];
+    private int[] sortedKeys = new int[INITIAL_CAPACITY];
+    private int[] scratchKeys = new int[INITIAL_CAPACITY];
+    private int[] scratchOrder = new int[INITIAL_CAPACITY];
+    private final int[] counts = new int[RADIX];
+    private int count; //0
+
+    /**
+     * Add a draw of a sprite at its own size
+     * @param sprite the sprite to draw
+     * @param x      the x coordinate to draw at
+     * @param y      the y coordinate to draw at
+     * @param layer  the layer from 0 to {@link #MAX_LAYER}
+     * @param depth  the depth within the layer
+     */
+    public void add(Sprite sprite, int x, int y, int layer, int depth) {
+        add(sprite, x, y, -1, -1, 0, layer, depth);
+    }
+
+    /**
+     * Add a draw of a sprite scaled to a size
+     * @param sprite the sprite to draw
+     * @param x      the x coordinate to draw at
+     * @param y      the y coordinate to draw at
+     * @param width  the width to draw the sprite with
+     * @param height the height to draw the sprite with
+     * @param layer  the layer from 0 to {@link #MAX_LAYER}
+     * @param depth  the depth within the layer
+     */
+    public void add(Sprite sprite, int x, int y, int width, int height, int layer, int depth) {
+        if(width < 0 || height < 0) {
+            throw new IllegalArgumentException("Size can't be negative");
+        }
+        add(sprite, x, y, width, height, 0, layer, depth);
+    }
+
+    /**
+     * Add a draw of a sprite rotated around its center
+     * @param sprite the sprite to draw
+     * @param x      the x coordinate to draw at
+     * @param y      the y coordinate to draw at
+     * @param angle  the angle to draw the sprite at
+     * @param layer  the layer from 0 to {@link #MAX_LAYER}
+     * @param depth  the depth within the layer
+     * @see Sprite#renderRotated(Graphics2D, int, int, int)
+     */
+    public void addRotated(Sprite sprite, int x, int y, int angle, int layer, int depth) {
+        add(sprite, x, y, -1, -1, angle, layer, depth);
+    }
+
+    private void add(Sprite sprite, int x, int y, int width, int height, int angle, int layer,
+                     int depth) {
+        if(layer < 0 || layer > MAX_LAYER) {
+            throw new IllegalArgumentException("Layer " + layer + " is not between 0 and " +
+                    MAX_LAYER);
+        }
+        if(count == keys.length) {
+            grow(count * 2);
+        }
+        int index = count++;
+        sprites[index] = sprite;
+        this.x[index] = x;
+        this.y[index] = y;
+        this.width[index] = width;
+        this.height[index] = height;
+        this.angle[index] = angle;
+        keys[index] = createKey(layer, depth);
+    }
+
+    /**
+     * Get the key a draw is sorted on, the layer is in the highest byte and the depth in the rest
+     * shifted to be positive, compared as an unsigned int
+     * @param layer the layer from 0 to {@link #MAX_LAYER}
+     * @param depth the depth within the layer
+     *
+     * @return the key
+     */
+    static int createKey(int layer, int depth) {
+        int clamped = Math.max(MIN_DEPTH, Math.min(depth, MAX_DEPTH));
+        return layer << 24 | (clamped - MIN_DEPTH);
+    }
+
+    private void grow(int capacity) {
+        sprites = Arrays.copyOf(sprites, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        width = Arrays.copyOf(width, capacity);
+        height = Arrays.copyOf(height, capacity);
+        angle = Arrays.copyOf(angle, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        order = new int[capacity];
+        sortedKeys = new int[capacity];
+        scratchKeys = new int[capacity];
+        scratchOrder = new int[capacity];
+    }
+
+    //a stable least significant digit radix sort of the draws on their keys, one byte per pass
+    private void sort() {
+        int[] fromKeys = sortedKeys;
+        int[] fromOrder = order;
+        int[] toKeys = scratchKeys;
+        int[] toOrder = scratchOrder;
+        int[] counts = this.counts;
+        System.arraycopy(keys, 0, fromKeys, 0, count);
+        for(int i = 0; i < count; i++) {
+            fromOrder[i] = i;
+        }
+        for(int shift = 0; shift < Integer.SIZE; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for(int i = 0; i < count; i++) {
+                counts[fromKeys[i] >>> shift & (RADIX - 1)]++;
+            }
+            //every key has the same digit, this pass would not move anything
+            if(counts[fromKeys[0] >>> shift & (RADIX - 1)] == count) {
+                continue;
+            }
+            int total = 0;
+            for(int digit = 0; digit < RADIX; digit++) {
+                int amount = counts[digit];
+                counts[digit] = total;
+                total += amount;
+            }
+            for(int i = 0; i < count; i++) {
+                int key = fromKeys[i];
+                int position = counts[key >>> shift & (RADIX - 1)]++;
+                toKeys[position] = key;
+                toOrder[position] = fromOrder[i];
+            }
+            int[] temp = fromKeys;
+            fromKeys = toKeys;
+            toKeys = temp;
+            temp = fromOrder;
+            fromOrder = toOrder;
+            toOrder = temp;
+        }
+        if(fromOrder != order) {
+            System.arraycopy(fromOrder, 0, order, 0, count);
+        }
+    }
+
+    /**
+     * Draw everything added sorted on layer and depth and empty the queue
+     * @param g the graphics to draw with
+     */
+    public void render(Graphics2D g) {
+        if(count == 0) {
+            return;
+        }
+        sort();
+        for(int i = 0; i < count; i++) {
+            int draw = order[i];
+            Sprite sprite = sprites[draw];
+            if(angle[draw] != 0) {
+                sprite.renderRotated(g, x[draw], y[draw], angle[draw]);
+            } else if(width[draw] < 0) {
+                sprite.render(g, x[draw], y[draw]);
+            } else {
+                sprite.render(g, x[draw], y[draw], width[draw], height[draw]);
+            }
+        }
+        clear();
+    }
+
+    /**
+     * Draw everything added sorted on layer and depth with a {@link SoftwareRenderer} and empty the
+     * queue
+     * @param renderer the renderer to draw with
+     */
+    public void render(SoftwareRenderer renderer) {
+        if(count == 0) {
+            return;
+        }
+        sort();
+        for(int i = 0; i < count; i++) {
+            int draw = order[i];
+            Sprite sprite = sprites[draw];
+            if(angle[draw] != 0) {
+                sprite.renderRotated(renderer, x[draw], y[draw], angle[draw], 1.0, 1.0,
+                        sprite.getWidth() / 2, sprite.getHeight() / 2);
+            } else if(width[draw] < 0) {
+                sprite.render(renderer, x[draw], y[draw]);
+            } else {
+                sprite.render(renderer, x[draw], y[draw], width[draw], height[draw]);
+            }
+        }
+        clear();
+    }
+
+    /**
+     * Remove everything added without drawing it
+     */
+    public void clear() {
+        //don't keep the sprites alive
+        Arrays.fill(sprites, 0, count, null);
+        count = 0;
+    }
+
+    /**
+     * @return the amount of draws added since the last render
+     */
+    public int size() {
+        return count;
+    }
+
+}
@@ -1,6 +1,7 @@
 package example.game.util.graphics;
 
 import example.game.Game;
+import example.game.util.CachedHashMap;
 
 import java.awt.AlphaComposite;
 import java.awt.Color;
@@ -25,11 +26,28 @@ public class Font {
      * Index of the selector in the font
      */
     public static final int SPECIALARROW = 1;
+    /**
+     * The maximum amount of messages remembered by {@link #createMessage(String)}
+     */
+    public static final int MESSAGE_CACHE_SIZE = 128;
     private static final char SPACE = ' ';
 
     private SpriteSheet sheet;
     private int width;
     private int height;
+    //the message sprites by their text, a message is often made again every frame
+    private final CachedHashMap<String, Sprite> messages =
+            new CachedHashMap<String, Sprite>(MESSAGE_CACHE_SIZE) {
+                @Override
+                public Sprite calcValue(String key) {
+                    return drawMessage(key);
+                }
+
+                @Override
+                protected void onEvict(String key, Sprite value) {
+                    value.flush();
+                }
+            };
 
     /**
      * Create a Font based on the {@link SpriteSheet}
@@ -284,7 +302,8 @@ public class Font {
     }
 
     /**
-     * Create a {@link Sprite} which stores the message given
+     * Create a {@link Sprite} which stores the message given, the same text gives the same Sprite
+     * while it is remembered
      * @param text the message
      *
      * @return the message stored in a Sprite
@@ -293,6 +312,10 @@ public class Font {
         if(text.isEmpty()) {
             return null;
         }
+        return messages.get(text);
+    }
+
+    private Sprite drawMessage(String text) {
         BufferedImage img = ImageUtilities.createAcceleratedImage(text.length() * width, height);
         Graphics2D g = img.createGraphics();
         String msg = text.toUpperCase();
@@ -301,6 +324,7 @@ public class Font {
             Sprite s = sheet.getSprite(c < 0 ? sheet.timeSize.width : c);
             s.render(g, width * i, 0);
         }
+        g.dispose();
         return Sprite.fromBufferedImage(img);
     }
 
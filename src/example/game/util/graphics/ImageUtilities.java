@@ -1,12 +1,16 @@
 package example.game.util.graphics;
 
+import example.game.util.CachedHashMap;
+
 import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.GraphicsConfiguration;
 import java.awt.GraphicsEnvironment;
+import java.awt.Image;
 import java.awt.Transparency;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 
 /**
  * This class contains a few utilities for manipulating images
@@ -19,6 +23,30 @@ public class ImageUtilities {
             GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
                     .getDefaultConfiguration();
 
+    /**
+     * The maximum amount of flipped, scaled and recolored sprites remembered
+     */
+    public static final int DERIVED_CACHE_SIZE = 512;
+
+    private static final int FLIP_VERTICAL = 0;
+    private static final int FLIP_HORIZONTAL = 1;
+    private static final int SCALE = 2;
+    private static final int PALETTE = 3;
+
+    //the sprites made from other sprites by the sprite, operation and parameters
+    private static final CachedHashMap<Derivation, Sprite> derived =
+            new CachedHashMap<Derivation, Sprite>(DERIVED_CACHE_SIZE) {
+                @Override
+                public Sprite calcValue(Derivation key) {
+                    return key.create();
+                }
+
+                @Override
+                protected void onEvict(Derivation key, Sprite value) {
+                    value.flush();
+                }
+            };
+
     /**
      * Creates a sprite with a certain color changed
      * @param sprite the sprite which it should be based upon
@@ -26,28 +54,97 @@ public class ImageUtilities {
      * @param to     color to change to
      *
      * @return the new sprite with the changed color
+     * @see #swapPalette(Sprite, Palette)
      */
     public static Sprite changeColor(Sprite sprite, Color from, Color to) {
-        int colF = from.getRGB();
-        int rgb = to.getRGB();
-        if(colF == rgb || sprite == null) {
+        if(from.getRGB() == to.getRGB() || sprite == null) {
             return sprite;
         }
-        BufferedImage img = new BufferedImage(sprite.getWidth(), sprite.getHeight(),
-                BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g = img.createGraphics();
-        sprite.render(g, 0, 0);
+        return swapPalette(sprite, new Palette(from, to));
+    }
 
-        for(int x = 0; x < img.getWidth(); x++) {
-            for(int y = 0; y < img.getHeight(); y++) {
-                if(img.getRGB(x, y) == colF) {
-                    img.setRGB(x, y, rgb);
-                }
-            }
+    /**
+     * Creates a sprite with the colors of a palette changed, in one pass over the pixels <p>The
+     * result is remembered so swapping the same palette on the same sprite again gives the same
+     * sprite.</p>
+     * @param sprite  the sprite which it should be based upon
+     * @param palette the colors to change
+     *
+     * @return the new sprite with the colors changed
+     * @see #getDerived(Sprite, int, int, Palette)
+     */
+    public static Sprite swapPalette(Sprite sprite, Palette palette) {
+        if(sprite == null || palette.isEmpty()) {
+            return sprite;
+        }
+        return getDerived(sprite, PALETTE, 0, palette);
+    }
+
+    private static Sprite createSwapped(Sprite sprite, Palette palette) {
+        PixelRaster raster = sprite.createRaster();
+        int width = raster == null ? sprite.getWidth() : raster.getWidth();
+        int height = raster == null ? sprite.getHeight() : raster.getHeight();
+        if(width <= 0 || height <= 0) {
+            return sprite;
+        }
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        if(raster == null) {
+            //sprites like a SpriteBatch have no raster so what they draw now is recolored
+            Graphics2D g = img.createGraphics();
+            sprite.render(g, 0, 0);
+            g.dispose();
+        }
+        //a new image so taking its array does not matter, it is copied to an accelerated one
+        int[] pixels = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+        if(raster != null) {
+            System.arraycopy(raster.getPixels(), 0, pixels, 0, width * height);
         }
+        palette.apply(pixels, 0, width * height);
         return Sprite.createAcceleratedSprite(img);
     }
 
+    /**
+     * Get a sprite made from another sprite, the same sprite is given for the same operation on the
+     * same sprite until it is removed from the cache <p>Sprites which can draw something else every
+     * frame, like an {@link Animation} or a {@link SpriteBatch}, are made as they are now and not
+     * remembered.</p>
+     * @param sprite    the sprite to make it from
+     * @param operation the operation
+     * @param parameter the number parameter of the operation
+     * @param palette   the palette of a recolor or null
+     *
+     * @return the sprite made
+     */
+    private static Sprite getDerived(Sprite sprite, int operation, int parameter,
+                                     Palette palette) {
+        Derivation key = new Derivation(sprite, operation, parameter, palette);
+        if(sprite instanceof ProxySprite || sprite instanceof SpriteBatch) {
+            return key.create();
+        }
+        return derived.get(key);
+    }
+
+    /**
+     * @return the amount of times a flipped, scaled or recolored sprite was remembered
+     */
+    public static long getDerivedCacheHits() {
+        return derived.getHits();
+    }
+
+    /**
+     * @return the amount of times a flipped, scaled or recolored sprite had to be made
+     */
+    public static long getDerivedCacheMisses() {
+        return derived.getMisses();
+    }
+
+    /**
+     * Forget all the flipped, scaled and recolored sprites
+     */
+    public static void clearDerivedCache() {
+        derived.clear();
+    }
+
     /**
      * Scales an image times given <p> Just multiplied the size of each pixel, no anti-aliasing
      * </p>
@@ -60,16 +157,17 @@ public class ImageUtilities {
         if(normal == null || normal == Sprite.EMPTY_SPRITE) {
             return Sprite.EMPTY_SPRITE;
         }
+        return getDerived(normal, SCALE, times, null);
+    }
+
+    private static Sprite createBigger(Sprite normal, int times) {
         int widthNew = normal.getWidth() * times;
         int heightNew = normal.getHeight() * times;
         if(widthNew == 0 || heightNew == 0) {
             throw new IllegalArgumentException(
                     "The width or height of the new image is zero (it might be the times)");
         }
-        BufferedImage img =
-                GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
-                        .getDefaultConfiguration()
-                        .createCompatibleImage(widthNew, heightNew, Transparency.TRANSLUCENT);
+        BufferedImage img = createAcceleratedImage(widthNew, heightNew);
         Graphics2D g = img.createGraphics();
         normal.renderScale(g, 0, 0, times);
         g.dispose();
@@ -84,12 +182,13 @@ public class ImageUtilities {
      * @return the vertically flipped image
      */
     public static Sprite flipVertical(Sprite base) {
+        return getDerived(base, FLIP_VERTICAL, 0, null);
+    }
+
+    private static Sprite createFlipVertical(Sprite base) {
         int width = base.getWidth();
         int height = base.getHeight();
-        BufferedImage img =
-                GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
-                        .getDefaultConfiguration()
-                        .createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        BufferedImage img = createAcceleratedImage(width, height);
         Graphics2D g = img.createGraphics();
         base.render(g, 0, height, width, 0, 0, 0, width, height);
         g.dispose();
@@ -103,12 +202,13 @@ public class ImageUtilities {
      * @return the horizontally flipped image
      */
     public static Sprite flipHorizontal(Sprite base) {
+        return getDerived(base, FLIP_HORIZONTAL, 0, null);
+    }
+
+    private static Sprite createFlipHorizontal(Sprite base) {
         int width = base.getWidth();
         int height = base.getHeight();
-        BufferedImage img =
-                GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
-                        .getDefaultConfiguration()
-                        .createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        BufferedImage img = createAcceleratedImage(width, height);
         Graphics2D g = img.createGraphics();
         base.render(g, width, 0, 0, height, 0, 0, width, height);
         g.dispose();
@@ -145,4 +245,80 @@ public class ImageUtilities {
         return gcon.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
     }
 
+    /**
+     * Create an accelerated copy of the image given
+     * @param img the image to copy
+     *
+     * @return the accelerated copy
+     */
+    public static BufferedImage createAcceleratedCopy(Image img) {
+        BufferedImage image = createAcceleratedImage(img.getWidth(null), img.getHeight(null));
+        Graphics2D g = image.createGraphics();
+        g.drawImage(img, 0, 0, null);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Check if an image is currently accelerated by the graphics card of the default screen
+     * @param img the image to check
+     *
+     * @return true if the image is accelerated
+     */
+    public static boolean isAccelerated(Image img) {
+        return img.getCapabilities(gcon).isAccelerated();
+    }
+
+    //a sprite made from a sprite with an operation, the sprite is compared by identity
+    private static class Derivation {
+
+        private final Sprite sprite;
+        private final int operation;
+        private final int parameter;
+        private final Palette palette;
+
+        private Derivation(Sprite sprite, int operation, int parameter, Palette palette) {
+            this.sprite = sprite;
+            this.operation = operation;
+            this.parameter = parameter;
+            this.palette = palette;
+        }
+
+        private Sprite create() {
+            switch(operation) {
+                case FLIP_VERTICAL:
+                    return createFlipVertical(sprite);
+                case FLIP_HORIZONTAL:
+                    return createFlipHorizontal(sprite);
+                case SCALE:
+                    return createBigger(sprite, parameter);
+                default:
+                    return createSwapped(sprite, palette);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(!(o instanceof Derivation)) {
+                return false;
+            }
+            Derivation that = (Derivation) o;
+            return sprite == that.sprite && operation == that.operation &&
+                    parameter == that.parameter &&
+                    (palette == null ? that.palette == null : palette.equals(that.palette));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(sprite);
+            result = 31 * result + operation;
+            result = 31 * result + parameter;
+            result = 31 * result + (palette != null ? palette.hashCode() : 0);
+            return result;
+        }
+    }
+
 }
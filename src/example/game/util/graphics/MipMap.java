@@ -0,0 +1,234 @@
+package example.game.util.graphics;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A MipMap holds an image at several sizes so a scaled draw can copy a level of about the right
+ * size instead of scaling the image every time <p>Level 0 is the image itself, every level above it
+ * is half as big and filtered by averaging blocks of 2x2 pixels, the levels below 0 are two, four
+ * and eight times as big without filtering to keep pixel art sharp. Levels are made the first time
+ * they are drawn or all at once with {@link #generate()}.</p>
+ * @author davidot
+ */
+public class MipMap {
+
+    /**
+     * The amount of levels bigger than the image, the biggest is eight times as big
+     */
+    public static final int MAX_UP_LEVELS = 3;
+
+    private final BufferedImage img;
+    //index 0 is the image, then the smaller levels
+    private final List<BufferedImage> down = new ArrayList<BufferedImage>();
+    //index 0 is twice as big
+    private final BufferedImage[] up = new BufferedImage[MAX_UP_LEVELS];
+    private final int downLevels;
+
+    /**
+     * Create a MipMap of an image, no levels are made yet
+     * @param img the image
+     */
+    public MipMap(BufferedImage img) {
+        if(img == null) {
+            throw new IllegalArgumentException("Image is null");
+        }
+        this.img = img;
+        down.add(img);
+        int levels = 0;
+        for(int size = Math.max(img.getWidth(), img.getHeight()); size > 1; size = (size + 1) / 2) {
+            levels++;
+        }
+        downLevels = levels;
+    }
+
+    /**
+     * Draw a part of the image scaled to a rectangle with the level which fits best, the level is
+     * drawn with the same coordinates scaled to its size
+     * @param g   the graphics to draw with
+     * @param dx1 the x coordinate of the first corner of the destination
+     * @param dy1 the y coordinate of the first corner of the destination
+     * @param dx2 the x coordinate of the second corner of the destination
+     * @param dy2 the y coordinate of the second corner of the destination
+     * @param sx1 the x coordinate of the first corner of the source
+     * @param sy1 the y coordinate of the first corner of the source
+     * @param sx2 the x coordinate of the second corner of the source
+     * @param sy2 the y coordinate of the second corner of the source
+     *
+     * @return false if the draw is not scaled enough for another level and the image should be
+     * drawn normally
+     */
+    public boolean render(Graphics2D g, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1,
+                          int sx2, int sy2) {
+        if(sx1 == sx2 || sy1 == sy2) {
+            return false;
+        }
+        double xScale = Math.abs((double) (dx2 - dx1) / (sx2 - sx1));
+        double yScale = Math.abs((double) (dy2 - dy1) / (sy2 - sy1));
+        int level = getLevel(xScale, yScale);
+        if(level < 0) {
+            int times = 1 << -level;
+            g.drawImage(getLevel(level), dx1, dy1, dx2, dy2, sx1 * times, sy1 * times, sx2 * times,
+                    sy2 * times, null);
+            return true;
+        }
+        //a smaller level can only be used when the source lands on its pixels
+        int width = img.getWidth();
+        int height = img.getHeight();
+        for(; level > 0; level--) {
+            BufferedImage levelImg = getLevel(level);
+            int levelWidth = levelImg.getWidth();
+            int levelHeight = levelImg.getHeight();
+            if((sx1 * levelWidth) % width == 0 && (sx2 * levelWidth) % width == 0 &&
+                    (sy1 * levelHeight) % height == 0 && (sy2 * levelHeight) % height == 0) {
+                g.drawImage(levelImg, dx1, dy1, dx2, dy2, sx1 * levelWidth / width,
+                        sy1 * levelHeight / height, sx2 * levelWidth / width,
+                        sy2 * levelHeight / height, null);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the level for a scale, the smallest level which is still at least as big as the draw
+     * or the biggest level which is not bigger than the draw
+     * @param xScale the scale of the draw on the x axis
+     * @param yScale the scale of the draw on the y axis
+     *
+     * @return the level
+     */
+    private int getLevel(double xScale, double yScale) {
+        int level = 0;
+        if(xScale < 1 || yScale < 1) {
+            //the sizes of the levels without making them
+            int levelWidth = (img.getWidth() + 1) / 2;
+            int levelHeight = (img.getHeight() + 1) / 2;
+            while(level < downLevels && xScale * img.getWidth() <= levelWidth &&
+                    yScale * img.getHeight() <= levelHeight) {
+                level++;
+                levelWidth = (levelWidth + 1) / 2;
+                levelHeight = (levelHeight + 1) / 2;
+            }
+        } else {
+            double scale = Math.min(xScale, yScale);
+            for(int times = 2; level > -MAX_UP_LEVELS && scale >= times; times *= 2) {
+                level--;
+            }
+        }
+        return level;
+    }
+
+    /**
+     * Get a level of the image, made when it is used the first time
+     * @param level the level, above 0 is smaller and below 0 is bigger
+     *
+     * @return the image of the level
+     */
+    public synchronized BufferedImage getLevel(int level) {
+        if(level < -MAX_UP_LEVELS || level > downLevels) {
+            throw new IllegalArgumentException("No level " + level + " in the MipMap");
+        }
+        if(level < 0) {
+            BufferedImage levelImg = up[-level - 1];
+            if(levelImg == null) {
+                levelImg = createBigger(1 << -level);
+                up[-level - 1] = levelImg;
+            }
+            return levelImg;
+        }
+        while(down.size() <= level) {
+            down.add(createSmaller(down.get(down.size() - 1)));
+        }
+        return down.get(level);
+    }
+
+    /**
+     * Make all the levels smaller than the image, for example while loading
+     */
+    public void generate() {
+        getLevel(downLevels);
+    }
+
+    private BufferedImage createBigger(int times) {
+        BufferedImage levelImg = ImageUtilities
+                .createAcceleratedImage(img.getWidth() * times, img.getHeight() * times);
+        Graphics2D g = levelImg.createGraphics();
+        g.drawImage(img, 0, 0, levelImg.getWidth(), levelImg.getHeight(), null);
+        g.dispose();
+        return levelImg;
+    }
+
+    //averages every 2x2 pixels with the colors weighted by alpha, so clear pixels add no color
+    private static BufferedImage createSmaller(BufferedImage img) {
+        int width = img.getWidth();
+        int height = img.getHeight();
+        int[] pixels = img.getRGB(0, 0, width, height, null, 0, width);
+        int levelWidth = (width + 1) / 2;
+        int levelHeight = (height + 1) / 2;
+        int[] levelPixels = new int[levelWidth * levelHeight];
+        for(int y = 0; y < levelHeight; y++) {
+            int y1 = y * 2;
+            int y2 = Math.min(y1 + 1, height - 1);
+            for(int x = 0; x < levelWidth; x++) {
+                int x1 = x * 2;
+                int x2 = Math.min(x1 + 1, width - 1);
+                int alpha = 0;
+                int red = 0;
+                int green = 0;
+                int blue = 0;
+                int amount = 0;
+                for(int sy = y1; sy <= y2; sy++) {
+                    for(int sx = x1; sx <= x2; sx++) {
+                        int pixel = pixels[sx + sy * width];
+                        int a = pixel >>> 24;
+                        alpha += a;
+                        red += (pixel >> 16 & 0xff) * a;
+                        green += (pixel >> 8 & 0xff) * a;
+                        blue += (pixel & 0xff) * a;
+                        amount++;
+                    }
+                }
+                if(alpha == 0) {
+                    continue;
+                }
+                int half = alpha / 2;
+                levelPixels[x + y * levelWidth] = (alpha + amount / 2) / amount << 24 |
+                        (red + half) / alpha << 16 | (green + half) / alpha << 8 |
+                        (blue + half) / alpha;
+            }
+        }
+        BufferedImage levelImg = ImageUtilities.createAcceleratedImage(levelWidth, levelHeight);
+        levelImg.setRGB(0, 0, levelWidth, levelHeight, levelPixels, 0, levelWidth);
+        return levelImg;
+    }
+
+    /**
+     * @return the amount of levels smaller than the image, the last one is one pixel big
+     */
+    public int getDownLevels() {
+        return downLevels;
+    }
+
+    public BufferedImage getImage() {
+        return img;
+    }
+
+    /**
+     * Free all the levels except the image itself, they are made again when used
+     */
+    public synchronized void flush() {
+        for(int i = 1; i < down.size(); i++) {
+            down.get(i).flush();
+        }
+        down.subList(1, down.size()).clear();
+        for(int i = 0; i < up.length; i++) {
+            if(up[i] != null) {
+                up[i].flush();
+                up[i] = null;
+            }
+        }
+    }
+}
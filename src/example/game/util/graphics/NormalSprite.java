@@ -1,7 +1,6 @@
 package example.game.util.graphics;
 
 import java.awt.Graphics2D;
-import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 
 /**
@@ -12,6 +11,12 @@ public class NormalSprite extends Sprite {
 
 
     private BufferedImage img;
+    //null when every rotated draw is transformed
+    private volatile RotationCache rotationCache;
+    //made for the first draw at 90 or 270 degrees
+    private volatile BufferedImage transposed;
+    //null when every scaled draw is scaled from the image
+    private volatile MipMap mipMap;
 
     /**
      * Create a NormalSprite based on a Image
@@ -27,17 +32,35 @@ public class NormalSprite extends Sprite {
     @Override
     public void renderRotated(Graphics2D g, int x, int y, int angle, double xScale, double yScale,
                               int xOff, int yOff) {
-        AffineTransform trans = new AffineTransform();
-        trans.setToTranslation(x, y);
-        trans.scale(xScale, yScale);
-        trans.rotate(Math.toRadians(angle), xOff, yOff);
-        g.drawImage(img, trans, null);
+        int quarters = getQuarterTurns(angle);
+        if(quarters >= 0 && renderQuarterTurns(g, quarters % 2 == 0 ? img : getTransposed(), 0, 0,
+                img.getWidth(), img.getHeight(), x, y, quarters, xScale, yScale, xOff, yOff)) {
+            return;
+        }
+        RotationCache cache = rotationCache;
+        if(cache != null && cache.render(g, img, x, y, angle, xScale, yScale, xOff, yOff)) {
+            return;
+        }
+        g.drawImage(img, getRotation(x, y, angle, xScale, yScale, xOff, yOff), null);
+    }
+
+    private BufferedImage getTransposed() {
+        BufferedImage transposed = this.transposed;
+        if(transposed == null) {
+            transposed = createTransposed(img, 0, 0, img.getWidth(), img.getHeight());
+            this.transposed = transposed;
+        }
+        return transposed;
     }
 
 
     @Override
     public void render(Graphics2D g, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2,
                        int sy2) {
+        MipMap mipMap = this.mipMap;
+        if(mipMap != null && mipMap.render(g, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2)) {
+            return;
+        }
         g.drawImage(img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null);
     }
 
@@ -51,6 +74,70 @@ public class NormalSprite extends Sprite {
         return img.getWidth();
     }
 
+    @Override
+    protected PixelRaster createRaster() {
+        return PixelRaster.fromImage(img);
+    }
+
+    /**
+     * Set the {@link RotationCache} which stores the rotations of this sprite, when set rotated
+     * draws use an image which is already rotated and the angle is rounded to a step of the cache
+     * @param rotationCache the cache to use or null to transform every rotated draw
+     */
+    public void setRotationCache(RotationCache rotationCache) {
+        RotationCache old = this.rotationCache;
+        this.rotationCache = rotationCache;
+        if(old != null && old != rotationCache) {
+            old.remove(img);
+        }
+    }
+
+    public RotationCache getRotationCache() {
+        return rotationCache;
+    }
+
+    /**
+     * Set whether scaled draws use a {@link MipMap}, a scaled draw then copies a level of about the
+     * right size which is made the first time it is needed
+     * @param mipMapped true to draw scaled with levels
+     */
+    public void setMipMapped(boolean mipMapped) {
+        MipMap old = this.mipMap;
+        if(mipMapped == (old != null)) {
+            return;
+        }
+        this.mipMap = mipMapped ? new MipMap(img) : null;
+        if(old != null) {
+            old.flush();
+        }
+    }
+
+    public boolean isMipMapped() {
+        return mipMap != null;
+    }
+
+    /**
+     * @return the levels used for scaled draws or null if the sprite is not mipmapped
+     */
+    public MipMap getMipMap() {
+        return mipMap;
+    }
+
+    @Override
+    public void flush() {
+        super.flush();
+        img.flush();
+        transposed = null;
+        MipMap mipMap = this.mipMap;
+        if(mipMap != null) {
+            mipMap.flush();
+        }
+        RotationCache cache = rotationCache;
+        if(cache != null) {
+            cache.remove(img);
+        }
+    }
+
     protected BufferedImage getImg() {
         return img;
     }
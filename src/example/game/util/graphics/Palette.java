@@ -0,0 +1,187 @@
+package example.game.util.graphics;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A Palette maps colors to other colors, used to recolor sprites with {@link
+ * ImageUtilities#swapPalette(Sprite, Palette)} <p>The colors are ARGB values and only exactly equal
+ * pixels are changed. The colors are stored in a small hash table so a pixel is looked up without
+ * going through every color. A Palette can't be changed after it is made, {@link #with(Color,
+ * Color)} gives a new Palette.</p>
+ * @author davidot
+ */
+public class Palette {
+
+    //the table has a free slot for every color to make the lookups short
+    private final int[] keys;
+    private final int[] values;
+    private final boolean[] used;
+    private final int mask;
+    //the mappings in the order they were given
+    private final int[] from;
+    private final int[] to;
+
+    /**
+     * Create a Palette which maps every color in from to the color at the same index in to
+     * @param from the ARGB colors to change
+     * @param to   the ARGB colors to change them to
+     */
+    public Palette(int[] from, int[] to) {
+        if(from.length != to.length) {
+            throw new IllegalArgumentException("Palette needs as many colors to change to as from");
+        }
+        //a later mapping of the same color wins, colors mapped to themselves are left out
+        Map<Integer, Integer> mappings = new LinkedHashMap<Integer, Integer>();
+        for(int i = 0; i < from.length; i++) {
+            mappings.put(from[i], to[i]);
+        }
+        int amount = 0;
+        int[] keptFrom = new int[mappings.size()];
+        int[] keptTo = new int[mappings.size()];
+        for(Map.Entry<Integer, Integer> entry : mappings.entrySet()) {
+            if(!entry.getKey().equals(entry.getValue())) {
+                keptFrom[amount] = entry.getKey();
+                keptTo[amount] = entry.getValue();
+                amount++;
+            }
+        }
+        this.from = Arrays.copyOf(keptFrom, amount);
+        this.to = Arrays.copyOf(keptTo, amount);
+        int capacity = Integer.highestOneBit(Math.max(amount, 1) * 2) * 2;
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        for(int i = 0; i < amount; i++) {
+            int slot = find(this.from[i]);
+            used[slot] = true;
+            keys[slot] = this.from[i];
+            values[slot] = this.to[i];
+        }
+    }
+
+    /**
+     * Create a Palette which changes one color
+     * @param from the color to change
+     * @param to   the color to change it to
+     */
+    public Palette(Color from, Color to) {
+        this(new int[]{from.getRGB()}, new int[]{to.getRGB()});
+    }
+
+    /**
+     * Get a Palette with the mappings of this one and one more
+     * @param from the color to change
+     * @param to   the color to change it to
+     *
+     * @return the new Palette
+     */
+    public Palette with(Color from, Color to) {
+        int[] newFrom = Arrays.copyOf(this.from, this.from.length + 1);
+        int[] newTo = Arrays.copyOf(this.to, this.to.length + 1);
+        newFrom[this.from.length] = from.getRGB();
+        newTo[this.to.length] = to.getRGB();
+        return new Palette(newFrom, newTo);
+    }
+
+    //the slot of the color or the empty slot where it should go
+    private int find(int color) {
+        int slot = mix(color) & mask;
+        while(used[slot] && keys[slot] != color) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(int color) {
+        int hash = color * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Get the color a color is changed to
+     * @param color the ARGB color
+     *
+     * @return the ARGB color it is changed to or the same color if it is not changed
+     */
+    public int map(int color) {
+        int slot = find(color);
+        return used[slot] ? values[slot] : color;
+    }
+
+    /**
+     * Change the colors of pixels in place
+     * @param pixels the ARGB pixels
+     * @param offset the index of the first pixel to change
+     * @param length the amount of pixels to change
+     */
+    public void apply(int[] pixels, int offset, int length) {
+        if(from.length == 0 || length <= 0) {
+            return;
+        }
+        int last = ~pixels[offset];
+        int mapped = 0;
+        for(int i = offset; i < offset + length; i++) {
+            int pixel = pixels[i];
+            //neighbouring pixels are often the same color
+            if(pixel != last) {
+                last = pixel;
+                mapped = map(pixel);
+            }
+            pixels[i] = mapped;
+        }
+    }
+
+    /**
+     * @return true if this Palette does not change any color
+     */
+    public boolean isEmpty() {
+        return from.length == 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) {
+            return true;
+        }
+        if(!(o instanceof Palette)) {
+            return false;
+        }
+        Palette palette = (Palette) o;
+        if(from.length != palette.from.length) {
+            return false;
+        }
+        for(int i = 0; i < from.length; i++) {
+            if(palette.map(from[i]) != to[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        //the same for every order of the colors
+        int hash = 0;
+        for(int i = 0; i < from.length; i++) {
+            hash += mix(from[i]) ^ to[i];
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Palette{");
+        for(int i = 0; i < from.length; i++) {
+            if(i > 0) {
+                builder.append(" ,");
+            }
+            builder.append(Integer.toHexString(from[i])).append("->")
+                    .append(Integer.toHexString(to[i]));
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,580 @@
+package example.game.util.graphics;
+
+import example.game.util.ParallelLoop;
+
+import java.awt.Graphics2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A ParticleSystem holds many small particles drawn with the sprites of a {@link SpriteSheet}
+ * <p>Every particle is an index in a set of arrays (location, velocity, rotation, age and sprite),
+ * there are no objects per particle. A tick lets the {@link Emitter}s spawn particles, then the
+ * {@link Affector}s and the movement run over all particles in one loop, on several threads with a
+ * {@link ParallelLoop}, and particles which lived their life are removed by moving the last particle
+ * in their place. After the arrays are made nothing is allocated.</p> <p>The location of a particle
+ * is the center of its sprite and the rotation is in degrees. A ParticleSystem should only be used
+ * by one thread at a time.</p>
+ * @author davidot
+ */
+public class ParticleSystem {
+
+    /**
+     * The smallest amount of particles given to a thread of the {@link ParallelLoop}
+     */
+    public static final int PARALLEL_CHUNK = 8192;
+
+    private final SpriteSheet sheet;
+    private final int spriteWidth;
+    private final int spriteHeight;
+    private final float[] x;
+    private final float[] y;
+    private final float[] velocityX;
+    private final float[] velocityY;
+    private final float[] rotation;
+    private final float[] spin;
+    private final int[] age;
+    private final int[] life;
+    private final short[] sprite;
+    private int count; //0
+    private final List<Emitter> emitters = new ArrayList<Emitter>();
+    private final List<Affector> affectors = new ArrayList<Affector>();
+    private ParallelLoop parallelLoop;
+    private final ParallelLoop.Body updateBody = new ParallelLoop.Body() {
+        @Override
+        public void run(int start, int end) {
+            update(start, end);
+        }
+    };
+    private int drawn; //0
+
+    /**
+     * Create an empty ParticleSystem
+     * @param sheet    the sheet with the sprites of the particles
+     * @param capacity the maximum amount of particles alive at once
+     */
+    public ParticleSystem(SpriteSheet sheet, int capacity) {
+        if(capacity <= 0) {
+            throw new IllegalArgumentException("Capacity has to be positive");
+        }
+        if(sheet.getSpriteAmount() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Sheet has too many sprites for a ParticleSystem");
+        }
+        this.sheet = sheet;
+        spriteWidth = sheet.getSpriteSize().width;
+        spriteHeight = sheet.getSpriteSize().height;
+        x = new float[capacity];
+        y = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        rotation = new float[capacity];
+        spin = new float[capacity];
+        age = new int[capacity];
+        life = new int[capacity];
+        sprite = new short[capacity];
+    }
+
+    /**
+     * Spawn a particle which does not rotate
+     * @param x         the x coordinate of the center
+     * @param y         the y coordinate of the center
+     * @param velocityX the distance moved on the x axis every tick
+     * @param velocityY the distance moved on the y axis every tick
+     * @param life      the amount of ticks the particle lives
+     * @param sprite    the index of the sprite in the sheet
+     *
+     * @return the index of the particle or -1 if the system is full
+     */
+    public int spawn(float x, float y, float velocityX, float velocityY, int life, int sprite) {
+        return spawn(x, y, velocityX, velocityY, 0, 0, life, sprite);
+    }
+
+    /**
+     * Spawn a particle, the index of a particle changes when other particles are removed
+     * @param x         the x coordinate of the center
+     * @param y         the y coordinate of the center
+     * @param velocityX the distance moved on the x axis every tick
+     * @param velocityY the distance moved on the y axis every tick
+     * @param rotation  the rotation in degrees
+     * @param spin      the degrees rotated every tick
+     * @param life      the amount of ticks the particle lives
+     * @param sprite    the index of the sprite in the sheet
+     *
+     * @return the index of the particle or -1 if the system is full
+     */
+    public int spawn(float x, float y, float velocityX, float velocityY, float rotation, float spin,
+                     int life, int sprite) {
+        if(sprite < 0 || sprite >= sheet.getSpriteAmount()) {
+            throw new IllegalArgumentException("No sprite " + sprite + " in the sheet");
+        }
+        if(count == this.x.length || life <= 0) {
+            return -1;
+        }
+        int index = count++;
+        this.x[index] = x;
+        this.y[index] = y;
+        this.velocityX[index] = velocityX;
+        this.velocityY[index] = velocityY;
+        this.rotation[index] = rotation;
+        this.spin[index] = spin;
+        this.age[index] = 0;
+        this.life[index] = life;
+        this.sprite[index] = (short) sprite;
+        return index;
+    }
+
+    /**
+     * Spawn the particles of the emitters, apply the affectors, move all particles and remove the
+     * ones which lived their life
+     */
+    public void tick() {
+        for(int i = 0; i < emitters.size(); i++) {
+            emitters.get(i).emit(this);
+        }
+        ParallelLoop loop = parallelLoop;
+        if(loop == null) {
+            update(0, count);
+        } else {
+            loop.run(0, count, PARALLEL_CHUNK, updateBody);
+        }
+        removeDead();
+    }
+
+    //a particle only changes its own index so parts can be updated at the same time
+    private void update(int start, int end) {
+        for(int i = 0; i < affectors.size(); i++) {
+            affectors.get(i).affect(this, start, end);
+        }
+        float[] x = this.x;
+        float[] y = this.y;
+        float[] velocityX = this.velocityX;
+        float[] velocityY = this.velocityY;
+        float[] rotation = this.rotation;
+        float[] spin = this.spin;
+        int[] age = this.age;
+        for(int i = start; i < end; i++) {
+            x[i] += velocityX[i];
+            y[i] += velocityY[i];
+            rotation[i] += spin[i];
+            age[i]++;
+        }
+    }
+
+    private void removeDead() {
+        int i = 0;
+        while(i < count) {
+            if(age[i] < life[i]) {
+                i++;
+                continue;
+            }
+            //the last particle takes its place and is checked next
+            int last = --count;
+            x[i] = x[last];
+            y[i] = y[last];
+            velocityX[i] = velocityX[last];
+            velocityY[i] = velocityY[last];
+            rotation[i] = rotation[last];
+            spin[i] = spin[last];
+            age[i] = age[last];
+            life[i] = life[last];
+            sprite[i] = sprite[last];
+        }
+    }
+
+    /**
+     * Draw the particles in the viewport, a particle at 0,0 is drawn at the negative camera
+     * location
+     * @param g       the graphics to draw with
+     * @param cameraX the x coordinate of the left top of the viewport
+     * @param cameraY the y coordinate of the left top of the viewport
+     * @param width   the width of the viewport
+     * @param height  the height of the viewport
+     */
+    public void render(Graphics2D g, int cameraX, int cameraY, int width, int height) {
+        drawn = 0;
+        //a rotated sprite stays within this distance of its center
+        int reach = Math.max(spriteWidth, spriteHeight);
+        for(int i = 0; i < count; i++) {
+            int centerX = (int) Math.floor(x[i]) - cameraX;
+            int centerY = (int) Math.floor(y[i]) - cameraY;
+            if(centerX + reach <= 0 || centerY + reach <= 0 || centerX - reach >= width ||
+                    centerY - reach >= height) {
+                continue;
+            }
+            Sprite particle = sheet.getSprite(sprite[i]);
+            int angle = Math.round(rotation[i]) % 360;
+            if(angle == 0) {
+                particle.render(g, centerX - spriteWidth / 2, centerY - spriteHeight / 2);
+            } else {
+                particle.renderRotated(g, centerX - spriteWidth / 2, centerY - spriteHeight / 2,
+                        angle);
+            }
+            drawn++;
+        }
+    }
+
+    /**
+     * Draw the particles in the viewport with a {@link SoftwareRenderer}, a particle at 0,0 is
+     * drawn at the negative camera location
+     * @param renderer the renderer to draw with
+     * @param cameraX  the x coordinate of the left top of the viewport
+     * @param cameraY  the y coordinate of the left top of the viewport
+     * @param width    the width of the viewport
+     * @param height   the height of the viewport
+     */
+    public void render(SoftwareRenderer renderer, int cameraX, int cameraY, int width,
+                       int height) {
+        drawn = 0;
+        int reach = Math.max(spriteWidth, spriteHeight);
+        for(int i = 0; i < count; i++) {
+            int centerX = (int) Math.floor(x[i]) - cameraX;
+            int centerY = (int) Math.floor(y[i]) - cameraY;
+            if(centerX + reach <= 0 || centerY + reach <= 0 || centerX - reach >= width ||
+                    centerY - reach >= height) {
+                continue;
+            }
+            Sprite particle = sheet.getSprite(sprite[i]);
+            int angle = Math.round(rotation[i]) % 360;
+            if(angle == 0) {
+                particle.render(renderer, centerX - spriteWidth / 2, centerY - spriteHeight / 2);
+            } else {
+                particle.renderRotated(renderer, centerX - spriteWidth / 2,
+                        centerY - spriteHeight / 2, angle, 1.0, 1.0, spriteWidth / 2,
+                        spriteHeight / 2);
+            }
+            drawn++;
+        }
+    }
+
+    /**
+     * Add an emitter which spawns particles every tick
+     * @param emitter the emitter
+     */
+    public void addEmitter(Emitter emitter) {
+        emitters.add(emitter);
+    }
+
+    public void removeEmitter(Emitter emitter) {
+        emitters.remove(emitter);
+    }
+
+    /**
+     * Add an affector which changes the particles every tick, before they move
+     * @param affector the affector
+     */
+    public void addAffector(Affector affector) {
+        affectors.add(affector);
+    }
+
+    public void removeAffector(Affector affector) {
+        affectors.remove(affector);
+    }
+
+    /**
+     * Set the loop used to update the particles on several threads
+     * @param parallelLoop the loop or null to update on the calling thread
+     */
+    public void setParallelLoop(ParallelLoop parallelLoop) {
+        this.parallelLoop = parallelLoop;
+    }
+
+    public ParallelLoop getParallelLoop() {
+        return parallelLoop;
+    }
+
+    /**
+     * Remove all particles
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * @return the amount of particles alive, the particles are the indices below this
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public int getCapacity() {
+        return x.length;
+    }
+
+    /**
+     * @return the amount of particles drawn by the last render
+     */
+    public int getDrawnCount() {
+        return drawn;
+    }
+
+    public SpriteSheet getSheet() {
+        return sheet;
+    }
+
+    /**
+     * The arrays below are the state of the particles itself, an index below {@link #getCount()}
+     * is a particle. They are meant for {@link Affector}s and are never replaced.
+     * @return the x coordinates of the centers
+     */
+    public float[] getX() {
+        return x;
+    }
+
+    /**
+     * @return the y coordinates of the centers
+     */
+    public float[] getY() {
+        return y;
+    }
+
+    /**
+     * @return the distances moved on the x axis every tick
+     */
+    public float[] getVelocityX() {
+        return velocityX;
+    }
+
+    /**
+     * @return the distances moved on the y axis every tick
+     */
+    public float[] getVelocityY() {
+        return velocityY;
+    }
+
+    /**
+     * @return the rotations in degrees
+     */
+    public float[] getRotation() {
+        return rotation;
+    }
+
+    /**
+     * @return the degrees rotated every tick
+     */
+    public float[] getSpin() {
+        return spin;
+    }
+
+    /**
+     * @return the amount of ticks the particles lived
+     */
+    public int[] getAge() {
+        return age;
+    }
+
+    /**
+     * @return the amount of ticks the particles live, a particle is removed when its age reaches
+     * this
+     */
+    public int[] getLife() {
+        return life;
+    }
+
+    /**
+     * @return the indices in the sheet of the sprites
+     */
+    public short[] getSprites() {
+        return sprite;
+    }
+
+    /**
+     * An Emitter spawns particles in a {@link ParticleSystem} every tick
+     */
+    public interface Emitter {
+
+        /**
+         * Spawn the particles of this tick
+         * @param system the system to spawn in
+         */
+        void emit(ParticleSystem system);
+    }
+
+    /**
+     * An Affector changes the particles of a {@link ParticleSystem} every tick through its arrays
+     * <p>With a {@link ParallelLoop} it is called from several threads at once for different
+     * parts of the particles, so it should only change the particles of its part.</p>
+     */
+    public interface Affector {
+
+        /**
+         * Change a part of the particles
+         * @param system the system of the particles
+         * @param start  the index of the first particle
+         * @param end    the index after the last particle
+         */
+        void affect(ParticleSystem system, int start, int end);
+    }
+
+    /**
+     * An Emitter which spawns particles at a point flying away in random directions with random
+     * speeds, lives and sprites in the ranges given
+     */
+    public static class PointEmitter implements Emitter {
+
+        private float x;
+        private float y;
+        private float rate;
+        //the part of a particle left over from the last ticks
+        private float carry; //0
+        private final float minSpeed;
+        private final float maxSpeed;
+        private final int minLife;
+        private final int maxLife;
+        private final int firstSprite;
+        private final int lastSprite;
+        private float direction; //0
+        private float spread = 360;
+        private float maxSpin; //0
+
+        /**
+         * Create a PointEmitter which spawns particles in all directions
+         * @param x           the x coordinate of the point
+         * @param y           the y coordinate of the point
+         * @param rate        the amount of particles every tick, can be less than one
+         * @param minSpeed    the lowest speed
+         * @param maxSpeed    the highest speed
+         * @param minLife     the shortest life in ticks
+         * @param maxLife     the longest life in ticks
+         * @param firstSprite the index in the sheet of the first sprite used
+         * @param lastSprite  the index in the sheet of the last sprite used
+         */
+        public PointEmitter(float x, float y, float rate, float minSpeed, float maxSpeed,
+                            int minLife, int maxLife, int firstSprite, int lastSprite) {
+            if(minLife <= 0 || maxLife < minLife || lastSprite < firstSprite) {
+                throw new IllegalArgumentException("Invalid life or sprite range");
+            }
+            this.x = x;
+            this.y = y;
+            this.rate = rate;
+            this.minSpeed = minSpeed;
+            this.maxSpeed = maxSpeed;
+            this.minLife = minLife;
+            this.maxLife = maxLife;
+            this.firstSprite = firstSprite;
+            this.lastSprite = lastSprite;
+        }
+
+        @Override
+        public void emit(ParticleSystem system) {
+            carry += rate;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while(carry >= 1) {
+                carry--;
+                double angle = Math.toRadians(direction + (random.nextDouble() - 0.5) * spread);
+                double speed = minSpeed + random.nextDouble() * (maxSpeed - minSpeed);
+                float spin = maxSpin == 0 ? 0 : (float) ((random.nextDouble() * 2 - 1) * maxSpin);
+                int index = system.spawn(x, y, (float) (Math.cos(angle) * speed),
+                        (float) (Math.sin(angle) * speed), 0, spin,
+                        minLife + random.nextInt(maxLife - minLife + 1),
+                        firstSprite + random.nextInt(lastSprite - firstSprite + 1));
+                if(index < 0) {
+                    //full, the rest of this tick would not fit either
+                    carry = 0;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Move the point particles are spawned at
+         * @param x the x coordinate of the point
+         * @param y the y coordinate of the point
+         */
+        public void setLocation(float x, float y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        /**
+         * Spawn the particles in a cone instead of all directions
+         * @param direction the direction of the middle of the cone in degrees, 0 is to the right
+         * @param spread    the width of the cone in degrees
+         */
+        public void setDirection(float direction, float spread) {
+            this.direction = direction;
+            this.spread = spread;
+        }
+
+        /**
+         * @param maxSpin the most degrees a particle rotates every tick, in either direction
+         */
+        public void setMaxSpin(float maxSpin) {
+            this.maxSpin = maxSpin;
+        }
+
+        /**
+         * @param rate the amount of particles every tick, can be less than one
+         */
+        public void setRate(float rate) {
+            this.rate = rate;
+        }
+    }
+
+    /**
+     * An Affector which accelerates the particles, like gravity or wind, and slows them down
+     */
+    public static class Force implements Affector {
+
+        private final float accelerationX;
+        private final float accelerationY;
+        private final float drag;
+
+        /**
+         * Create a Force
+         * @param accelerationX the speed added on the x axis every tick
+         * @param accelerationY the speed added on the y axis every tick
+         * @param drag          the part of the speed lost every tick, 0 to keep all speed
+         */
+        public Force(float accelerationX, float accelerationY, float drag) {
+            this.accelerationX = accelerationX;
+            this.accelerationY = accelerationY;
+            this.drag = drag;
+        }
+
+        @Override
+        public void affect(ParticleSystem system, int start, int end) {
+            float[] velocityX = system.getVelocityX();
+            float[] velocityY = system.getVelocityY();
+            float keep = 1 - drag;
+            for(int i = start; i < end; i++) {
+                velocityX[i] = velocityX[i] * keep + accelerationX;
+                velocityY[i] = velocityY[i] * keep + accelerationY;
+            }
+        }
+    }
+
+    /**
+     * An Affector which changes the sprite of a particle over its life, from the first to the last
+     * sprite in the sheet given
+     */
+    public static class FrameOverLife implements Affector {
+
+        private final int firstSprite;
+        private final int frames;
+
+        /**
+         * Create a FrameOverLife
+         * @param firstSprite the index in the sheet of the sprite at the start of a life
+         * @param lastSprite  the index in the sheet of the sprite at the end of a life
+         */
+        public FrameOverLife(int firstSprite, int lastSprite) {
+            if(lastSprite < firstSprite) {
+                throw new IllegalArgumentException("Last sprite is before the first sprite");
+            }
+            this.firstSprite = firstSprite;
+            frames = lastSprite - firstSprite + 1;
+        }
+
+        @Override
+        public void affect(ParticleSystem system, int start, int end) {
+            int[] age = system.getAge();
+            int[] life = system.getLife();
+            short[] sprite = system.getSprites();
+            for(int i = start; i < end; i++) {
+                sprite[i] = (short) (firstSprite + (int) ((long) age[i] * frames / life[i]));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package example.game.util.graphics;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * A PixelRaster holds the pixels of a sprite as an int[] of ARGB values so the {@link
+ * SoftwareRenderer} can copy them without going through Java2D <p>When created the pixels are
+ * checked once to see which loop is needed to draw them, see {@link Mode}.</p>
+ * @author davidot
+ */
+public class PixelRaster {
+
+    /**
+     * The way the pixels of a PixelRaster have to be drawn
+     */
+    public enum Mode {
+        /**
+         * All pixels are fully opaque so they can be copied
+         */
+        OPAQUE,
+        /**
+         * All pixels are fully opaque or fully transparent so the transparent ones are skipped
+         */
+        ALPHA_TEST,
+        /**
+         * Some pixels are partly transparent and have to be blended
+         */
+        ALPHA_BLEND
+    }
+
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+    private final Mode mode;
+
+    /**
+     * Create a PixelRaster with the pixels given, the array is not copied and should not be changed
+     * after this
+     * @param pixels the ARGB pixels row by row, not premultiplied
+     * @param width  the width of the raster
+     * @param height the height of the raster
+     */
+    public PixelRaster(int[] pixels, int width, int height) {
+        if(width <= 0 || height <= 0 || pixels.length < width * height) {
+            throw new IllegalArgumentException("Not enough pixels for " + width + "x" + height);
+        }
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+        this.mode = findMode(pixels, width * height);
+    }
+
+    /**
+     * Create a PixelRaster with a copy of the pixels of an image
+     * @param img the image to copy
+     *
+     * @return the PixelRaster created
+     */
+    public static PixelRaster fromImage(BufferedImage img) {
+        return fromImage(img, 0, 0, img.getWidth(), img.getHeight());
+    }
+
+    /**
+     * Create a PixelRaster with a copy of the pixels in a rectangle of an image
+     * @param img    the image to copy from
+     * @param x      the x coordinate of the rectangle
+     * @param y      the y coordinate of the rectangle
+     * @param width  the width of the rectangle
+     * @param height the height of the rectangle
+     *
+     * @return the PixelRaster created
+     */
+    public static PixelRaster fromImage(BufferedImage img, int x, int y, int width, int height) {
+        //getRGB copies so the image stays managed by Java2D
+        return new PixelRaster(img.getRGB(x, y, width, height, null, 0, width), width, height);
+    }
+
+    private static Mode findMode(int[] pixels, int length) {
+        Mode mode = Mode.OPAQUE;
+        for(int i = 0; i < length; i++) {
+            int alpha = pixels[i] >>> 24;
+            if(alpha == 0) {
+                mode = Mode.ALPHA_TEST;
+            } else if(alpha != 0xff) {
+                return Mode.ALPHA_BLEND;
+            }
+        }
+        return mode;
+    }
+
+    /**
+     * @return the pixels of this raster, should not be changed
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+}
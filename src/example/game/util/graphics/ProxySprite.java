@@ -31,6 +31,24 @@ public abstract class ProxySprite extends Sprite {
         getSprite().renderRotated(g, x, y, angle, xScale, yScale, xOff, yOff);
     }
 
+    @Override
+    public void render(SoftwareRenderer renderer, int dx1, int dy1, int dx2, int dy2, int sx1,
+                       int sy1, int sx2, int sy2) {
+        getSprite().render(renderer, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2);
+    }
+
+    @Override
+    public void renderRotated(SoftwareRenderer renderer, int x, int y, int angle, double xScale,
+                              double yScale, int xOff, int yOff) {
+        getSprite().renderRotated(renderer, x, y, angle, xScale, yScale, xOff, yOff);
+    }
+
+    @Override
+    public PixelRaster getRaster() {
+        //the sprite can change so the raster is never stored here
+        return getSprite().getRaster();
+    }
+
     /**
      * The Sprite on which the actual rendering will be executed should be called here
      * @return the Sprite to execute the render calls on
@@ -0,0 +1,167 @@
+package example.game.util.graphics;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+/**
+ * A RegionSprite draws a rectangle of an image which can be shared with other RegionSprites <p>
+ * This is used by the {@link TextureAtlas} and the {@link SpriteSheet} so many sprites can be drawn
+ * from one large image without copying it. Source coordinates outside of the region are clipped so
+ * a RegionSprite never draws the pixels of its neighbours.</p>
+ * @author davidot
+ */
+public class RegionSprite extends Sprite {
+
+    private final BufferedImage img;
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+    //made for the first draw at 90 or 270 degrees
+    private volatile BufferedImage transposed;
+
+    /**
+     * Create a RegionSprite which draws a rectangle of the image given
+     * @param img    the image which holds the region
+     * @param x      the x coordinate of the region in the image
+     * @param y      the y coordinate of the region in the image
+     * @param width  the width of the region
+     * @param height the height of the region
+     */
+    public RegionSprite(BufferedImage img, int x, int y, int width, int height) {
+        if(img == null) {
+            throw new IllegalArgumentException("Image is null");
+        }
+        if(x < 0 || y < 0 || width <= 0 || height <= 0 || x + width > img.getWidth() ||
+                y + height > img.getHeight()) {
+            throw new IllegalArgumentException("Region is not inside the image");
+        }
+        this.img = img;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public void render(Graphics2D g, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2,
+                       int sy2) {
+        if(inside(sx1, sx2, width) && inside(sy1, sy2, height)) {
+            g.drawImage(img, dx1, dy1, dx2, dy2, x + sx1, y + sy1, x + sx2, y + sy2, null);
+            return;
+        }
+        //clip the source to the region and move the destination with it
+        int cx1 = clamp(sx1, width);
+        int cx2 = clamp(sx2, width);
+        int cy1 = clamp(sy1, height);
+        int cy2 = clamp(sy2, height);
+        if(cx1 == cx2 || cy1 == cy2) {
+            return;
+        }
+        double xScale = (dx2 - dx1) / (double) (sx2 - sx1);
+        double yScale = (dy2 - dy1) / (double) (sy2 - sy1);
+        g.drawImage(img, dx1 + (int) Math.round((cx1 - sx1) * xScale),
+                dy1 + (int) Math.round((cy1 - sy1) * yScale),
+                dx1 + (int) Math.round((cx2 - sx1) * xScale),
+                dy1 + (int) Math.round((cy2 - sy1) * yScale), x + cx1, y + cy1, x + cx2, y + cy2,
+                null);
+    }
+
+    private static boolean inside(int s1, int s2, int size) {
+        return s1 >= 0 && s2 >= 0 && s1 <= size && s2 <= size;
+    }
+
+    private static int clamp(int value, int size) {
+        return value < 0 ? 0 : value > size ? size : value;
+    }
+
+    @Override
+    public void renderRotated(Graphics2D g, int x, int y, int angle, double xScale, double yScale,
+                              int xOff, int yOff) {
+        int quarters = getQuarterTurns(angle);
+        if(quarters % 2 == 0 && renderQuarterTurns(g, img, this.x, this.y, width, height, x, y,
+                quarters, xScale, yScale, xOff, yOff)) {
+            return;
+        }
+        if(quarters % 2 == 1 && renderQuarterTurns(g, getTransposed(), 0, 0, width, height, x, y,
+                quarters, xScale, yScale, xOff, yOff)) {
+            return;
+        }
+        //the region can't be drawn with a transform on its own so the graphics is transformed
+        AffineTransform old = g.getTransform();
+        g.translate(x, y);
+        g.scale(xScale, yScale);
+        g.rotate(Math.toRadians(angle), xOff, yOff);
+        g.drawImage(img, 0, 0, width, height, this.x, this.y, this.x + width, this.y + height,
+                null);
+        g.setTransform(old);
+    }
+
+    private BufferedImage getTransposed() {
+        BufferedImage transposed = this.transposed;
+        if(transposed == null) {
+            transposed = createTransposed(img, x, y, width, height);
+            this.transposed = transposed;
+        }
+        return transposed;
+    }
+
+    @Override
+    public void flush() {
+        super.flush();
+        transposed = null;
+    }
+
+    @Override
+    protected PixelRaster createRaster() {
+        return PixelRaster.fromImage(img, x, y, width, height);
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get a sprite which draws a rectangle inside this region, it shares the image of this sprite
+     * @param x      the x coordinate of the rectangle in this region
+     * @param y      the y coordinate of the rectangle in this region
+     * @param width  the width of the rectangle
+     * @param height the height of the rectangle
+     *
+     * @return the sprite which draws the rectangle
+     */
+    public RegionSprite getRegion(int x, int y, int width, int height) {
+        if(x < 0 || y < 0 || x + width > this.width || y + height > this.height) {
+            throw new IllegalArgumentException("Region is not inside this region");
+        }
+        return new RegionSprite(img, this.x + x, this.y + y, width, height);
+    }
+
+    /**
+     * @return the image which holds the region, it can be shared with other sprites
+     */
+    public BufferedImage getImage() {
+        return img;
+    }
+
+    /**
+     * @return the x coordinate of the region in the image
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * @return the y coordinate of the region in the image
+     */
+    public int getY() {
+        return y;
+    }
+}
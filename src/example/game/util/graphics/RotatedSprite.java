@@ -38,6 +38,13 @@ public class RotatedSprite extends Sprite {
     }
 
 
+    @Override
+    public void render(SoftwareRenderer renderer, int dx1, int dy1, int dx2, int dy2, int sx1,
+                       int sy1, int sx2, int sy2) {
+        //rotating is not done by the loops of the renderer
+        render(renderer.getGraphics(), dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2);
+    }
+
     @Override
     public int getHeight() {
         return sprite.getHeight();
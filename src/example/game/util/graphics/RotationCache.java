@@ -0,0 +1,263 @@
+package example.game.util.graphics;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A RotationCache stores images which are already rotated so drawing a sprite rotated is a normal
+ * blit instead of a transformed one <p>The angles are rounded to a number of steps around the
+ * circle, with 360 steps every whole angle is exact and with 64 steps an angle can be off by 2.8
+ * degrees. A rotation is made the first time it is drawn for an angle step and scale. Only scales
+ * on a step of 1 / {@link #SCALE_STEPS} are stored, other scales are drawn transformed so a sprite
+ * drawn at a scale which changes every frame, like while zooming, does not make an image every
+ * draw.</p> <p>The images made together can't use more memory than the maximum given, when they do
+ * the image drawn the longest ago is removed. A RotationCache can be shared by multiple sprites so
+ * they share the memory.</p>
+ * @author davidot
+ * @see NormalSprite#setRotationCache(RotationCache)
+ */
+public class RotationCache {
+
+    /**
+     * The default maximum amount of bytes used by the images of a RotationCache
+     */
+    public static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * The amount of scales per unit which are stored, 8 stores 0.125, 0.25 and so on
+     */
+    public static final int SCALE_STEPS = 8;
+
+    private final int steps;
+    private final long maxBytes;
+    //in access order so the first entry is the one drawn the longest ago
+    private final Map<Key, Rotation> rotations = new LinkedHashMap<Key, Rotation>(16, 0.75f, true);
+    private long bytes; //0
+
+    /**
+     * Create a RotationCache with the default maximum amount of memory
+     * @param steps the amount of angles around the circle which are stored
+     */
+    public RotationCache(int steps) {
+        this(steps, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Create a RotationCache
+     * @param steps    the amount of angles around the circle which are stored
+     * @param maxBytes the maximum amount of bytes the rotated images can use together
+     */
+    public RotationCache(int steps, long maxBytes) {
+        if(steps <= 0) {
+            throw new IllegalArgumentException("Steps has to be positive");
+        }
+        this.steps = steps;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Draw an image rotated the same way as {@link NormalSprite#renderRotated(Graphics2D, int, int,
+     * int, double, double, int, int)} but with the angle rounded to a step of this cache
+     * @param g      the graphics to draw with
+     * @param img    the image to draw
+     * @param x      the x location to draw at
+     * @param y      the y location to draw at
+     * @param angle  the angle to draw the image at
+     * @param xScale the scale in the x (width) direction
+     * @param yScale the scale in the y (height) direction
+     * @param xOff   the x coordinate in the image to rotate around
+     * @param yOff   the y coordinate in the image to rotate around
+     *
+     * @return false if the scale is not stored by this cache or the rotated image is too large to
+     * store, in which case nothing is drawn
+     */
+    public boolean render(Graphics2D g, BufferedImage img, int x, int y, int angle, double xScale,
+                          double yScale, int xOff, int yOff) {
+        int xStep = getScaleStep(xScale);
+        int yStep = getScaleStep(yScale);
+        if(xStep <= 0 || yStep <= 0) {
+            return false;
+        }
+        int step = (int) Math.round(angle * (double) steps / 360.0) % steps;
+        if(step < 0) {
+            step += steps;
+        }
+        Rotation rotation = get(img, step, xStep, yStep);
+        if(rotation == null) {
+            return false;
+        }
+        //the image is rotated around 0,0 so move it to where rotating around the offset puts it
+        double cos = rotation.cos;
+        double sin = rotation.sin;
+        double pivotX = xScale * (xOff - (xOff * cos - yOff * sin));
+        double pivotY = yScale * (yOff - (xOff * sin + yOff * cos));
+        g.drawImage(rotation.img, x + rotation.x + (int) Math.round(pivotX),
+                y + rotation.y + (int) Math.round(pivotY), null);
+        return true;
+    }
+
+    //the scale in steps of 1 / SCALE_STEPS or 0 if the scale is not on a step
+    private static int getScaleStep(double scale) {
+        double step = scale * SCALE_STEPS;
+        if(step != Math.rint(step) || step > Integer.MAX_VALUE) {
+            return 0;
+        }
+        return (int) step;
+    }
+
+    private synchronized Rotation get(BufferedImage img, int step, int xStep, int yStep) {
+        Key key = new Key(img, step, xStep, yStep);
+        Rotation rotation = rotations.get(key);
+        if(rotation != null) {
+            return rotation;
+        }
+        double radians = step * 2 * Math.PI / steps;
+        AffineTransform trans = AffineTransform.getScaleInstance(xStep / (double) SCALE_STEPS,
+                yStep / (double) SCALE_STEPS);
+        trans.rotate(radians);
+        Rectangle2D bounds = trans.createTransformedShape(
+                new Rectangle2D.Double(0, 0, img.getWidth(), img.getHeight())).getBounds2D();
+        int minX = (int) Math.floor(bounds.getMinX());
+        int minY = (int) Math.floor(bounds.getMinY());
+        int width = (int) Math.ceil(bounds.getMaxX()) - minX;
+        int height = (int) Math.ceil(bounds.getMaxY()) - minY;
+        long size = (long) width * height * 4;
+        if(width <= 0 || height <= 0 || size > maxBytes) {
+            return null;
+        }
+        BufferedImage rotated = ImageUtilities.createAcceleratedImage(width, height);
+        Graphics2D g = rotated.createGraphics();
+        g.translate(-minX, -minY);
+        g.drawImage(img, trans, null);
+        g.dispose();
+        rotation = new Rotation(rotated, minX, minY, Math.cos(radians), Math.sin(radians));
+        rotations.put(key, rotation);
+        bytes += size;
+        trim();
+        return rotation;
+    }
+
+    //remove the rotations drawn the longest ago until the memory used is below the maximum
+    private void trim() {
+        Iterator<Rotation> iterator = rotations.values().iterator();
+        while(bytes > maxBytes && iterator.hasNext()) {
+            Rotation rotation = iterator.next();
+            iterator.remove();
+            remove(rotation);
+        }
+    }
+
+    private void remove(Rotation rotation) {
+        bytes -= (long) rotation.img.getWidth() * rotation.img.getHeight() * 4;
+        rotation.img.flush();
+    }
+
+    /**
+     * Remove all the rotations of an image
+     * @param img the image
+     */
+    public synchronized void remove(BufferedImage img) {
+        Iterator<Map.Entry<Key, Rotation>> iterator = rotations.entrySet().iterator();
+        while(iterator.hasNext()) {
+            Map.Entry<Key, Rotation> entry = iterator.next();
+            if(entry.getKey().img == img) {
+                iterator.remove();
+                remove(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Remove all the rotations
+     */
+    public synchronized void clear() {
+        for(Rotation rotation : rotations.values()) {
+            rotation.img.flush();
+        }
+        rotations.clear();
+        bytes = 0;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return the amount of bytes used by the rotated images
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the amount of rotated images stored
+     */
+    public synchronized int size() {
+        return rotations.size();
+    }
+
+    private static class Key {
+
+        private final BufferedImage img;
+        private final int step;
+        private final int xStep;
+        private final int yStep;
+
+        private Key(BufferedImage img, int step, int xStep, int yStep) {
+            this.img = img;
+            this.step = step;
+            this.xStep = xStep;
+            this.yStep = yStep;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return img == key.img && step == key.step && xStep == key.xStep &&
+                    yStep == key.yStep;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(img);
+            result = 31 * result + step;
+            result = 31 * result + xStep;
+            result = 31 * result + yStep;
+            return result;
+        }
+    }
+
+    //an image rotated around 0,0 with the location of its left top corner
+    private static class Rotation {
+
+        private final BufferedImage img;
+        private final int x;
+        private final int y;
+        private final double cos;
+        private final double sin;
+
+        private Rotation(BufferedImage img, int x, int y, double cos, double sin) {
+            this.img = img;
+            this.x = x;
+            this.y = y;
+            this.cos = cos;
+            this.sin = sin;
+        }
+    }
+
+}
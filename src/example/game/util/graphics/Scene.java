@@ -0,0 +1,373 @@
+package example.game.util.graphics;
+
+import java.awt.Graphics2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Scene holds the sprites of a world at their location and only draws the ones which are inside
+ * the viewport <p>The sprites are stored in a uniform grid of square cells, a render looks only at
+ * the cells which overlap the viewport so the time it takes grows with what is on the screen
+ * instead of the size of the world. Sprites are drawn in the order they were added.</p> <p>The
+ * bounds of a sprite are its location with its width and height, sprites which draw outside of
+ * that, like a {@link CenteredSprite}, should be added with their bounds given.</p> <p>A Scene
+ * should only be used by one thread at a time.</p>
+ * @author davidot
+ */
+public class Scene {
+
+    /**
+     * The default width and height of a cell of the grid
+     */
+    public static final int DEFAULT_CELL_SIZE = 256;
+
+    private static final Comparator<Node> ADD_ORDER = new Comparator<Node>() {
+        @Override
+        public int compare(Node o1, Node o2) {
+            return o1.order < o2.order ? -1 : o1.order == o2.order ? 0 : 1;
+        }
+    };
+
+    private final int cellSize;
+    private final Map<Long, List<Node>> cells = new HashMap<Long, List<Node>>();
+    private int size; //0
+    private long nextOrder; //0
+    //changed every query so a node in multiple cells is only found once
+    private int stamp; //0
+    private Node[] visible = new Node[16];
+    private int drawn; //0
+    private int culled; //0
+
+    /**
+     * Create a Scene with cells of the default size
+     */
+    public Scene() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Create a Scene with cells of the size given, cells about the size of the viewport divided by
+     * 4 work well
+     * @param cellSize the width and height of a cell
+     */
+    public Scene(int cellSize) {
+        if(cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size has to be positive");
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Add a sprite at a location, its bounds are its width and height
+     * @param sprite the sprite to draw
+     * @param x      the x coordinate in the world
+     * @param y      the y coordinate in the world
+     *
+     * @return the node which can move or remove the sprite
+     */
+    public Node add(Sprite sprite, int x, int y) {
+        return add(sprite, x, y, 0, 0, sprite.getWidth(), sprite.getHeight());
+    }
+
+    /**
+     * Add a sprite at a location with the bounds given
+     * @param sprite       the sprite to draw
+     * @param x            the x coordinate in the world
+     * @param y            the y coordinate in the world
+     * @param boundsX      the x of the bounds relative to the location
+     * @param boundsY      the y of the bounds relative to the location
+     * @param boundsWidth  the width of the bounds
+     * @param boundsHeight the height of the bounds
+     *
+     * @return the node which can move or remove the sprite
+     */
+    public Node add(Sprite sprite, int x, int y, int boundsX, int boundsY, int boundsWidth,
+                    int boundsHeight) {
+        Node node = new Node(this, sprite, nextOrder++);
+        node.x = x;
+        node.y = y;
+        node.boundsX = boundsX;
+        node.boundsY = boundsY;
+        node.boundsWidth = boundsWidth;
+        node.boundsHeight = boundsHeight;
+        insert(node);
+        size++;
+        return node;
+    }
+
+    //put the node in every cell its bounds overlap
+    private void insert(Node node) {
+        int left = node.x + node.boundsX;
+        int top = node.y + node.boundsY;
+        node.minCellX = cell(left);
+        node.minCellY = cell(top);
+        //a node without size is still in the cell of its location
+        node.maxCellX = cell(left + Math.max(node.boundsWidth - 1, 0));
+        node.maxCellY = cell(top + Math.max(node.boundsHeight - 1, 0));
+        for(int cellX = node.minCellX; cellX <= node.maxCellX; cellX++) {
+            for(int cellY = node.minCellY; cellY <= node.maxCellY; cellY++) {
+                Long key = key(cellX, cellY);
+                List<Node> cell = cells.get(key);
+                if(cell == null) {
+                    cell = new ArrayList<Node>();
+                    cells.put(key, cell);
+                }
+                cell.add(node);
+            }
+        }
+    }
+
+    private void erase(Node node) {
+        for(int cellX = node.minCellX; cellX <= node.maxCellX; cellX++) {
+            for(int cellY = node.minCellY; cellY <= node.maxCellY; cellY++) {
+                Long key = key(cellX, cellY);
+                List<Node> cell = cells.get(key);
+                if(cell != null && cell.remove(node) && cell.isEmpty()) {
+                    cells.remove(key);
+                }
+            }
+        }
+    }
+
+    //called when the bounds of a node change
+    private void update(Node node) {
+        int left = node.x + node.boundsX;
+        int top = node.y + node.boundsY;
+        if(cell(left) == node.minCellX && cell(top) == node.minCellY &&
+                cell(left + Math.max(node.boundsWidth - 1, 0)) == node.maxCellX &&
+                cell(top + Math.max(node.boundsHeight - 1, 0)) == node.maxCellY) {
+            return;
+        }
+        erase(node);
+        insert(node);
+    }
+
+    private int cell(int coordinate) {
+        //rounds down for negative coordinates too
+        return coordinate >= 0 ? coordinate / cellSize : (coordinate + 1) / cellSize - 1;
+    }
+
+    private static Long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xffffffffL);
+    }
+
+    /**
+     * Find the nodes which overlap a rectangle of the world
+     * @param x      the x coordinate of the rectangle
+     * @param y      the y coordinate of the rectangle
+     * @param width  the width of the rectangle
+     * @param height the height of the rectangle
+     *
+     * @return the nodes in the order they were added
+     */
+    public List<Node> query(int x, int y, int width, int height) {
+        int amount = collect(x, y, width, height);
+        List<Node> nodes = new ArrayList<Node>(Arrays.asList(visible).subList(0, amount));
+        Arrays.fill(visible, 0, amount, null);
+        return nodes;
+    }
+
+    //put the nodes overlapping the rectangle in visible sorted on add order, returns the amount
+    private int collect(int x, int y, int width, int height) {
+        if(width <= 0 || height <= 0) {
+            return 0;
+        }
+        stamp++;
+        int amount = 0;
+        int maxX = x + width;
+        int maxY = y + height;
+        for(int cellX = cell(x); cellX <= cell(maxX - 1); cellX++) {
+            for(int cellY = cell(y); cellY <= cell(maxY - 1); cellY++) {
+                List<Node> cell = cells.get(key(cellX, cellY));
+                if(cell == null) {
+                    continue;
+                }
+                for(int i = 0; i < cell.size(); i++) {
+                    Node node = cell.get(i);
+                    if(node.stamp == stamp) {
+                        continue;
+                    }
+                    node.stamp = stamp;
+                    int left = node.x + node.boundsX;
+                    int top = node.y + node.boundsY;
+                    if(left < maxX && top < maxY && left + node.boundsWidth > x &&
+                            top + node.boundsHeight > y) {
+                        if(amount == visible.length) {
+                            visible = Arrays.copyOf(visible, amount * 2);
+                        }
+                        visible[amount++] = node;
+                    }
+                }
+            }
+        }
+        Arrays.sort(visible, 0, amount, ADD_ORDER);
+        return amount;
+    }
+
+    /**
+     * Draw the sprites inside the viewport, the sprite at the camera location is drawn at 0,0
+     * @param g       the graphics to draw with
+     * @param cameraX the x coordinate in the world of the left top of the viewport
+     * @param cameraY the y coordinate in the world of the left top of the viewport
+     * @param width   the width of the viewport
+     * @param height  the height of the viewport
+     */
+    public void render(Graphics2D g, int cameraX, int cameraY, int width, int height) {
+        int amount = collect(cameraX, cameraY, width, height);
+        for(int i = 0; i < amount; i++) {
+            Node node = visible[i];
+            node.sprite.render(g, node.x - cameraX, node.y - cameraY);
+            visible[i] = null;
+        }
+        drawn = amount;
+        culled = size - amount;
+    }
+
+    /**
+     * Draw the sprites inside the viewport with a {@link SoftwareRenderer}, the sprite at the
+     * camera location is drawn at 0,0
+     * @param renderer the renderer to draw with
+     * @param cameraX  the x coordinate in the world of the left top of the viewport
+     * @param cameraY  the y coordinate in the world of the left top of the viewport
+     * @param width    the width of the viewport
+     * @param height   the height of the viewport
+     */
+    public void render(SoftwareRenderer renderer, int cameraX, int cameraY, int width,
+                       int height) {
+        int amount = collect(cameraX, cameraY, width, height);
+        for(int i = 0; i < amount; i++) {
+            Node node = visible[i];
+            node.sprite.render(renderer, node.x - cameraX, node.y - cameraY);
+            visible[i] = null;
+        }
+        drawn = amount;
+        culled = size - amount;
+    }
+
+    /**
+     * @return the amount of sprites drawn by the last render
+     */
+    public int getDrawnCount() {
+        return drawn;
+    }
+
+    /**
+     * @return the amount of sprites not drawn by the last render because they were outside of the
+     * viewport
+     */
+    public int getCulledCount() {
+        return culled;
+    }
+
+    /**
+     * @return the amount of sprites in this scene
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * A sprite in a {@link Scene} at a location
+     */
+    public static class Node {
+
+        private final Scene scene;
+        private final long order;
+        private Sprite sprite;
+        private int x;
+        private int y;
+        private int boundsX;
+        private int boundsY;
+        private int boundsWidth;
+        private int boundsHeight;
+        private boolean removed; //false
+        //the cells the node is in
+        private int minCellX;
+        private int minCellY;
+        private int maxCellX;
+        private int maxCellY;
+        private int stamp;
+
+        private Node(Scene scene, Sprite sprite, long order) {
+            this.scene = scene;
+            this.sprite = sprite;
+            this.order = order;
+            stamp = scene.stamp;
+        }
+
+        /**
+         * Move the sprite to another location
+         * @param x the new x coordinate in the world
+         * @param y the new y coordinate in the world
+         */
+        public void moveTo(int x, int y) {
+            this.x = x;
+            this.y = y;
+            if(!removed) {
+                scene.update(this);
+            }
+        }
+
+        /**
+         * Change the bounds of the sprite
+         * @param boundsX      the x of the bounds relative to the location
+         * @param boundsY      the y of the bounds relative to the location
+         * @param boundsWidth  the width of the bounds
+         * @param boundsHeight the height of the bounds
+         */
+        public void setBounds(int boundsX, int boundsY, int boundsWidth, int boundsHeight) {
+            this.boundsX = boundsX;
+            this.boundsY = boundsY;
+            this.boundsWidth = boundsWidth;
+            this.boundsHeight = boundsHeight;
+            if(!removed) {
+                scene.update(this);
+            }
+        }
+
+        /**
+         * Change the sprite drawn, the bounds stay the same
+         * @param sprite the new sprite
+         */
+        public void setSprite(Sprite sprite) {
+            this.sprite = sprite;
+        }
+
+        /**
+         * Remove the sprite from the scene, nothing happens if it is removed already
+         */
+        public void remove() {
+            if(removed) {
+                return;
+            }
+            removed = true;
+            scene.erase(this);
+            scene.size--;
+        }
+
+        public Sprite getSprite() {
+            return sprite;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public boolean isRemoved() {
+            return removed;
+        }
+    }
+
+}
@@ -0,0 +1,314 @@
+package example.game.util.graphics;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * A SoftwareRenderer draws sprites by copying their {@link PixelRaster} straight into the int[] of
+ * a back buffer instead of calling {@link Graphics2D#drawImage} for every sprite <p>When thousands
+ * of small sprites are drawn the overhead of every drawImage call is larger than the copy itself,
+ * here a draw is a loop over the pixels which are visible. Sprites are scaled with nearest
+ * neighbour sampling. The finished frame is drawn to the screen with one drawImage by {@link
+ * #present(Graphics2D, int, int)}.</p> <p>Things the loops can't draw, like rotated sprites and
+ * shapes, are drawn with Java2D on the same back buffer through {@link #getGraphics()}.</p> <p>A
+ * SoftwareRenderer should only be used by one thread at a time.</p>
+ * @author davidot
+ */
+public class SoftwareRenderer {
+
+    private BufferedImage image;
+    private int[] pixels;
+    private int width;
+    private int height;
+    private Graphics2D graphics;
+
+    //the source column and row of every destination column and row of the current draw
+    private int[] xIndex = new int[0];
+    private int[] yIndex = new int[0];
+    //the first destination column or row set by the last map call
+    private int mapStart;
+
+    /**
+     * Create a SoftwareRenderer with a back buffer of the size given
+     * @param width  the width of the back buffer
+     * @param height the height of the back buffer
+     */
+    public SoftwareRenderer(int width, int height) {
+        resize(width, height);
+    }
+
+    /**
+     * Change the size of the back buffer, nothing happens if the size is the same <p>The contents
+     * of the back buffer are lost when the size changes.</p>
+     * @param width  the new width
+     * @param height the new height
+     */
+    public void resize(int width, int height) {
+        if(width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Size has to be positive");
+        }
+        if(image != null && width == this.width && height == this.height) {
+            return;
+        }
+        if(graphics != null) {
+            graphics.dispose();
+            graphics = null;
+        }
+        this.width = width;
+        this.height = height;
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Fill the whole back buffer with one color
+     * @param rgb the color as RGB
+     */
+    public void clear(int rgb) {
+        Arrays.fill(pixels, rgb);
+    }
+
+    /**
+     * Fill a rectangle of the back buffer with one color
+     * @param x      the x coordinate of the rectangle
+     * @param y      the y coordinate of the rectangle
+     * @param width  the width of the rectangle
+     * @param height the height of the rectangle
+     * @param rgb    the color as RGB
+     */
+    public void fillRect(int x, int y, int width, int height, int rgb) {
+        int x1 = Math.max(x, 0);
+        int y1 = Math.max(y, 0);
+        int x2 = Math.min(x + width, this.width);
+        int y2 = Math.min(y + height, this.height);
+        if(x1 >= x2) {
+            return;
+        }
+        for(int row = y1; row < y2; row++) {
+            Arrays.fill(pixels, row * this.width + x1, row * this.width + x2, rgb);
+        }
+    }
+
+    /**
+     * Draw a raster unscaled at a location
+     * @param raster the raster to draw
+     * @param x      the x coordinate to draw on
+     * @param y      the y coordinate to draw on
+     */
+    public void draw(PixelRaster raster, int x, int y) {
+        draw(raster, x, y, x + raster.getWidth(), y + raster.getHeight(), 0, 0, raster.getWidth(),
+                raster.getHeight());
+    }
+
+    /**
+     * Draw a rectangle of a raster scaled to fit a rectangle of the back buffer, with the same
+     * meaning of the coordinates as {@link Graphics2D#drawImage(java.awt.Image, int, int, int, int,
+     * int, int, int, int, java.awt.image.ImageObserver)} <p>Parts of the source outside of the
+     * raster and parts of the destination outside of the back buffer are not drawn.</p>
+     * @param raster the raster to draw
+     * @param dx1    the x coordinate of the first corner of the destination rectangle
+     * @param dy1    the y coordinate of the first corner of the destination rectangle
+     * @param dx2    the x coordinate of the second corner of the destination rectangle
+     * @param dy2    the y coordinate of the second corner of the destination rectangle
+     * @param sx1    the x coordinate of the first corner of the source rectangle
+     * @param sy1    the y coordinate of the first corner of the source rectangle
+     * @param sx2    the x coordinate of the second corner of the source rectangle
+     * @param sy2    the y coordinate of the second corner of the source rectangle
+     */
+    public void draw(PixelRaster raster, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1,
+                     int sx2, int sy2) {
+        if(dx1 == dx2 || dy1 == dy2 || sx1 == sx2 || sy1 == sy2) {
+            return;
+        }
+        //walk the destination forwards, a flip is kept in the direction of the source
+        if(dx2 < dx1) {
+            int temp = dx1;
+            dx1 = dx2;
+            dx2 = temp;
+            temp = sx1;
+            sx1 = sx2;
+            sx2 = temp;
+        }
+        if(dy2 < dy1) {
+            int temp = dy1;
+            dy1 = dy2;
+            dy2 = temp;
+            temp = sy1;
+            sy1 = sy2;
+            sy2 = temp;
+        }
+        if(xIndex.length < width) {
+            xIndex = new int[width];
+        }
+        if(yIndex.length < height) {
+            yIndex = new int[height];
+        }
+        int columns = map(xIndex, dx1, dx2, sx1, sx2, width, raster.getWidth());
+        int x = mapStart;
+        int rows = map(yIndex, dy1, dy2, sy1, sy2, height, raster.getHeight());
+        int y = mapStart;
+        if(columns == 0 || rows == 0) {
+            return;
+        }
+        boolean contiguous = dx2 - dx1 == sx2 - sx1;
+        switch(raster.getMode()) {
+            case OPAQUE:
+                drawOpaque(raster, x, y, columns, rows, contiguous);
+                break;
+            case ALPHA_TEST:
+                drawAlphaTest(raster, x, y, columns, rows);
+                break;
+            default:
+                drawAlphaBlend(raster, x, y, columns, rows);
+                break;
+        }
+    }
+
+    //fill the index with the source coordinate of every destination coordinate which is inside
+    // both the destination and the source, returns the amount and sets mapStart to the first
+    private int map(int[] index, int d1, int d2, int s1, int s2, int destSize, int sourceSize) {
+        int start = Math.max(d1, 0);
+        int end = Math.min(d2, destSize);
+        mapStart = start;
+        if(start >= end) {
+            return 0;
+        }
+        //the mapping only goes one way so the source is only outside at the ends
+        while(start < end && !inside(sample(start, d1, d2, s1, s2), sourceSize)) {
+            start++;
+        }
+        while(end > start && !inside(sample(end - 1, d1, d2, s1, s2), sourceSize)) {
+            end--;
+        }
+        mapStart = start;
+        int amount = end - start;
+        for(int i = 0; i < amount; i++) {
+            index[i] = sample(start + i, d1, d2, s1, s2);
+        }
+        return amount;
+    }
+
+    //the source coordinate under the middle of a destination pixel, d2 is larger than d1
+    private static int sample(int d, int d1, int d2, int s1, int s2) {
+        //unscaled draws, like most small sprites, map one to one without dividing
+        if(s2 - s1 == d2 - d1) {
+            return s1 + (d - d1);
+        } else if(s1 - s2 == d2 - d1) {
+            return s1 - (d - d1) - 1;
+        }
+        long numerator = (2L * (d - d1) + 1) * (s2 - s1);
+        long denominator = 2L * (d2 - d1);
+        //rounded down, also for negative offsets when the source is flipped
+        long offset = numerator / denominator;
+        if(numerator % denominator != 0 && numerator < 0) {
+            offset--;
+        }
+        return (int) (s1 + offset);
+    }
+
+    private static boolean inside(int value, int size) {
+        return value >= 0 && value < size;
+    }
+
+    private void drawOpaque(PixelRaster raster, int x, int y, int columns, int rows,
+                            boolean contiguous) {
+        int[] source = raster.getPixels();
+        int sourceWidth = raster.getWidth();
+        int[] xIndex = this.xIndex;
+        for(int row = 0; row < rows; row++) {
+            int sourceRow = yIndex[row] * sourceWidth;
+            int dest = (y + row) * width + x;
+            if(contiguous) {
+                System.arraycopy(source, sourceRow + xIndex[0], pixels, dest, columns);
+            } else {
+                for(int i = 0; i < columns; i++) {
+                    pixels[dest + i] = source[sourceRow + xIndex[i]];
+                }
+            }
+        }
+    }
+
+    private void drawAlphaTest(PixelRaster raster, int x, int y, int columns, int rows) {
+        int[] source = raster.getPixels();
+        int sourceWidth = raster.getWidth();
+        int[] xIndex = this.xIndex;
+        for(int row = 0; row < rows; row++) {
+            int sourceRow = yIndex[row] * sourceWidth;
+            int dest = (y + row) * width + x;
+            for(int i = 0; i < columns; i++) {
+                int pixel = source[sourceRow + xIndex[i]];
+                if(pixel >>> 24 != 0) {
+                    pixels[dest + i] = pixel;
+                }
+            }
+        }
+    }
+
+    private void drawAlphaBlend(PixelRaster raster, int x, int y, int columns, int rows) {
+        int[] source = raster.getPixels();
+        int sourceWidth = raster.getWidth();
+        int[] xIndex = this.xIndex;
+        for(int row = 0; row < rows; row++) {
+            int sourceRow = yIndex[row] * sourceWidth;
+            int dest = (y + row) * width + x;
+            for(int i = 0; i < columns; i++) {
+                int pixel = source[sourceRow + xIndex[i]];
+                int alpha = pixel >>> 24;
+                if(alpha == 0xff) {
+                    pixels[dest + i] = pixel;
+                } else if(alpha != 0) {
+                    //0-255 to 0-256 so the blend can shift instead of divide
+                    alpha += alpha >> 7;
+                    int inverse = 256 - alpha;
+                    int back = pixels[dest + i];
+                    //red and blue at once, they are far enough apart not to overflow
+                    int redBlue = ((pixel & 0xff00ff) * alpha + (back & 0xff00ff) * inverse)
+                            >>> 8 & 0xff00ff;
+                    int green = ((pixel & 0xff00) * alpha + (back & 0xff00) * inverse)
+                            >>> 8 & 0xff00;
+                    pixels[dest + i] = 0xff000000 | redBlue | green;
+                }
+            }
+        }
+    }
+
+    /**
+     * Draw the back buffer with one drawImage call
+     * @param g the graphics to draw on, usually of the screen
+     * @param x the x coordinate to draw on
+     * @param y the y coordinate to draw on
+     */
+    public void present(Graphics2D g, int x, int y) {
+        g.drawImage(image, x, y, null);
+    }
+
+    /**
+     * Get a Graphics2D which draws on the back buffer, for the things which can't be drawn with
+     * the loops of this renderer <p>The Graphics2D is shared and should not be disposed, it is made
+     * again when the back buffer is resized.</p>
+     * @return the Graphics2D of the back buffer
+     */
+    public Graphics2D getGraphics() {
+        if(graphics == null) {
+            graphics = image.createGraphics();
+        }
+        return graphics;
+    }
+
+    /**
+     * @return the back buffer, the pixels are RGB
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
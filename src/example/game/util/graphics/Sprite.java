@@ -3,6 +3,7 @@ package example.game.util.graphics;
 import javax.imageio.ImageIO;
 import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
@@ -20,6 +21,18 @@ public abstract class Sprite {
      */
     public static Sprite EMPTY_SPRITE = new EmptySprite();
 
+    //made when first drawn by a SoftwareRenderer
+    private volatile PixelRaster raster;
+
+    //reused by the rotated draws so they don't make a new transform every call
+    private static final ThreadLocal<AffineTransform> SCRATCH_TRANSFORM =
+            new ThreadLocal<AffineTransform>() {
+                @Override
+                protected AffineTransform initialValue() {
+                    return new AffineTransform();
+                }
+            };
+
 
     /**
      * Creates a accelerated sprite from the inputstream
@@ -41,10 +54,7 @@ public abstract class Sprite {
      * @return the sprite created
      */
     public static Sprite createAcceleratedSprite(Image img) {
-        BufferedImage image =
-                ImageUtilities.createAcceleratedImage(img.getWidth(null), img.getHeight(null));
-        image.getGraphics().drawImage(img, 0, 0, null);
-        return Sprite.fromBufferedImage(image);
+        return Sprite.fromBufferedImage(ImageUtilities.createAcceleratedCopy(img));
     }
 
     public abstract int getWidth();
@@ -109,7 +119,7 @@ public abstract class Sprite {
      * @param angle the angle to draw the sprite at
      */
     public void renderRotated(Graphics2D g, int x, int y, int angle) {
-        renderRotated(g, x, y, angle, 1.0, 1.0);
+        renderRotated(g, x, y, angle, 1.0, 1.0, getWidth() / 2, getHeight() / 2);
     }
 
     /**
@@ -154,6 +164,239 @@ public abstract class Sprite {
     public abstract void renderRotated(Graphics2D g, int x, int y, int angle, double xScale,
                                        double yScale, int xOff, int yOff);
 
+    /**
+     * Get the transform of a rotated draw, the transform is reused by the next call on the same
+     * thread so it should not be kept
+     * @param x      the x location to draw at
+     * @param y      the y location to draw at
+     * @param angle  the angle to draw at
+     * @param xScale the scale in the x (width) direction
+     * @param yScale the scale in the y (height) direction
+     * @param xOff   the offset in the x (width) direction
+     * @param yOff   the offset in the y (height) direction
+     *
+     * @return the transform of this thread set to the rotation
+     */
+    protected static AffineTransform getRotation(int x, int y, int angle, double xScale,
+                                                 double yScale, int xOff, int yOff) {
+        AffineTransform trans = SCRATCH_TRANSFORM.get();
+        trans.setToTranslation(x, y);
+        trans.scale(xScale, yScale);
+        trans.rotate(Math.toRadians(angle), xOff, yOff);
+        return trans;
+    }
+
+    /**
+     * Get the amount of quarter turns an angle is
+     * @param angle the angle
+     *
+     * @return 0 to 3 for 0, 90, 180 and 270 degrees or -1 if the angle is not a right angle
+     */
+    protected static int getQuarterTurns(int angle) {
+        int normal = angle % 360;
+        if(normal < 0) {
+            normal += 360;
+        }
+        return normal % 90 == 0 ? normal / 90 : -1;
+    }
+
+    /**
+     * Draw a rotation of a right angle as a normal draw with a flipped rectangle, the same as a
+     * rotated draw of an image with the size width by height <p>For 90 and 270 degrees the source
+     * should be the transposed image, so height by width, which is flipped once more.</p>
+     * @param g        the graphics to draw with
+     * @param source   the image to draw, transposed when the quarter turns are odd
+     * @param sx       the x coordinate of the image in the source
+     * @param sy       the y coordinate of the image in the source
+     * @param width    the width of the image before rotating
+     * @param height   the height of the image before rotating
+     * @param x        the x location to draw at
+     * @param y        the y location to draw at
+     * @param quarters the quarter turns from {@link #getQuarterTurns(int)}
+     * @param xScale   the scale in the x (width) direction
+     * @param yScale   the scale in the y (height) direction
+     * @param xOff     the offset in the x (width) direction
+     * @param yOff     the offset in the y (height) direction
+     *
+     * @return false if the corners do not fall on whole pixels in which case nothing is drawn
+     */
+    protected static boolean renderQuarterTurns(Graphics2D g, Image source, int sx, int sy,
+                                                int width, int height, int x, int y, int quarters,
+                                                double xScale, double yScale, int xOff,
+                                                int yOff) {
+        //the corners of the source rectangle after rotating around the offset
+        double x1;
+        double y1;
+        double x2;
+        double y2;
+        int sourceWidth = width;
+        int sourceHeight = height;
+        switch(quarters) {
+            case 0:
+                x1 = 0;
+                y1 = 0;
+                x2 = width;
+                y2 = height;
+                break;
+            case 1:
+                x1 = xOff + yOff;
+                y1 = yOff - xOff;
+                x2 = x1 - height;
+                y2 = y1 + width;
+                sourceWidth = height;
+                sourceHeight = width;
+                break;
+            case 2:
+                x1 = 2 * xOff;
+                y1 = 2 * yOff;
+                x2 = x1 - width;
+                y2 = y1 - height;
+                break;
+            case 3:
+                x1 = xOff - yOff;
+                y1 = xOff + yOff;
+                x2 = x1 + height;
+                y2 = y1 - width;
+                sourceWidth = height;
+                sourceHeight = width;
+                break;
+            default:
+                return false;
+        }
+        x1 = x + x1 * xScale;
+        y1 = y + y1 * yScale;
+        x2 = x + x2 * xScale;
+        y2 = y + y2 * yScale;
+        if(x1 != Math.rint(x1) || y1 != Math.rint(y1) || x2 != Math.rint(x2) ||
+                y2 != Math.rint(y2)) {
+            return false;
+        }
+        g.drawImage(source, (int) x1, (int) y1, (int) x2, (int) y2, sx, sy, sx + sourceWidth,
+                sy + sourceHeight, null);
+        return true;
+    }
+
+    /**
+     * Make a transposed copy of a rectangle of an image, so the x and y coordinates are swapped,
+     * for the 90 and 270 degree draws of {@link #renderQuarterTurns}
+     * @param img    the image to copy from
+     * @param x      the x coordinate of the rectangle
+     * @param y      the y coordinate of the rectangle
+     * @param width  the width of the rectangle
+     * @param height the height of the rectangle
+     *
+     * @return the transposed image which is height by width
+     */
+    protected static BufferedImage createTransposed(BufferedImage img, int x, int y, int width,
+                                                    int height) {
+        BufferedImage transposed = ImageUtilities.createAcceleratedImage(height, width);
+        Graphics2D g = transposed.createGraphics();
+        g.transform(new AffineTransform(0, 1, 1, 0, 0, 0));
+        g.drawImage(img, 0, 0, width, height, x, y, x + width, y + height, null);
+        g.dispose();
+        return transposed;
+    }
+
+    /**
+     * Render this sprite at a certain location with a {@link SoftwareRenderer}
+     * @param renderer the renderer to draw with
+     * @param x        the x coordinate to draw on
+     * @param y        the y coordinate to draw on
+     */
+    public void render(SoftwareRenderer renderer, int x, int y) {
+        render(renderer, x, y, getWidth(), getHeight());
+    }
+
+    /**
+     * Render this sprite in a rectangle with a {@link SoftwareRenderer}
+     * @param renderer the renderer to draw with
+     * @param x        the x coordinate to draw on
+     * @param y        the y coordinate to draw on
+     * @param width    the width of the rectangle
+     * @param height   the height of the rectangle
+     */
+    public void render(SoftwareRenderer renderer, int x, int y, int width, int height) {
+        render(renderer, x, y, x + width, y + height, 0, 0, getWidth(), getHeight());
+    }
+
+    /**
+     * Draws the specified area of this sprite scaled to the specified area with a {@link
+     * SoftwareRenderer} <p>By default the pixels of {@link #getRaster()} are drawn.</p>
+     * @param renderer the renderer to draw with
+     * @param dx1      the x coordinate of the first corner of the destination rectangle.
+     * @param dy1      the y coordinate of the first corner of the destination rectangle.
+     * @param dx2      the x coordinate of the second corner of the destination rectangle.
+     * @param dy2      the y coordinate of the second corner of the destination rectangle.
+     * @param sx1      the x coordinate of the first corner of the source rectangle.
+     * @param sy1      the y coordinate of the first corner of the source rectangle.
+     * @param sx2      the x coordinate of the second corner of the source rectangle.
+     * @param sy2      the y coordinate of the second corner of the source rectangle.
+     */
+    public void render(SoftwareRenderer renderer, int dx1, int dy1, int dx2, int dy2, int sx1,
+                       int sy1, int sx2, int sy2) {
+        PixelRaster raster = getRaster();
+        if(raster != null) {
+            renderer.draw(raster, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2);
+        }
+    }
+
+    /**
+     * Renders a sprite rotated with a {@link SoftwareRenderer}, the loops of the renderer can't
+     * rotate so by default this draws with Java2D on the back buffer of the renderer
+     * @param renderer the renderer to draw with
+     * @param x        the x location to draw at
+     * @param y        the y location to draw at
+     * @param angle    the angle to draw the sprite at
+     * @param xScale   the scale in the x (width) direction
+     * @param yScale   the scale in the y (height) direction
+     * @param xOff     the offset in the x (width) direction
+     * @param yOff     the offset in the y (height) direction
+     */
+    public void renderRotated(SoftwareRenderer renderer, int x, int y, int angle, double xScale,
+                              double yScale, int xOff, int yOff) {
+        renderRotated(renderer.getGraphics(), x, y, angle, xScale, yScale, xOff, yOff);
+    }
+
+    /**
+     * Get the pixels of this sprite as drawn by the {@link SoftwareRenderer}, they are made the
+     * first time this is called
+     * @return the pixels or null if this sprite has no size
+     */
+    public PixelRaster getRaster() {
+        PixelRaster raster = this.raster;
+        if(raster == null) {
+            raster = createRaster();
+            this.raster = raster;
+        }
+        return raster;
+    }
+
+    /**
+     * Make the pixels of this sprite for the {@link SoftwareRenderer}, by default this sprite is
+     * rendered once into an image
+     * @return the pixels or null if this sprite has no size
+     */
+    protected PixelRaster createRaster() {
+        if(getWidth() <= 0 || getHeight() <= 0) {
+            return null;
+        }
+        BufferedImage img = new BufferedImage(getWidth(), getHeight(),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        render(g, 0, 0);
+        g.dispose();
+        return PixelRaster.fromImage(img);
+    }
+
+    /**
+     * Free the resources this sprite holds which can be made again, like the copy of the image in
+     * video memory <p>The sprite can still be rendered after this but the first render can be
+     * slower</p>
+     */
+    public void flush() {
+        raster = null;
+    }
+
     /**
      * Creates a Sprite from the {@link BufferedImage} <p> This will not copy the BufferedImage so
      * if the BufferedImage changes so does the sprite </p>
@@ -183,6 +426,12 @@ public abstract class Sprite {
             //don't
         }
 
+        @Override
+        public void render(SoftwareRenderer renderer, int dx1, int dy1, int dx2, int dy2,
+                           int sx1, int sy1, int sx2, int sy2) {
+            //don't
+        }
+
         @Override
         public int getWidth() {
             return 0;
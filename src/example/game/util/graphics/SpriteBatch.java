@@ -1,11 +1,14 @@
 package example.game.util.graphics;
 
 import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * A SpriteBatch can be used to draw multiple Sprites on top of each other with offsets
+ * A SpriteBatch can be used to draw multiple Sprites on top of each other with offsets <p>A batch
+ * which does not change can be flattened with {@link #setFlatten(boolean)}, it is then drawn once
+ * into an image and every render after that draws only that image.</p>
  * @author davidot
  */
 public class SpriteBatch extends Sprite {
@@ -15,6 +18,12 @@ public class SpriteBatch extends Sprite {
     private final Sprite base;
     private final List<SpriteDraw> sprites; //don't start at capacity of 10
     private boolean clearAfter; //false
+    private boolean flatten; //false
+    //the batch drawn into one image, null if it has to be made again
+    private Sprite flattened;
+    //the location of the flattened image relative to the base
+    private int flatX;
+    private int flatY;
 
     /**
      * Create a SpriteBatch with the base Sprite on which the other sprites will be drawn <p> The
@@ -68,6 +77,7 @@ public class SpriteBatch extends Sprite {
      */
     public void addSprite(Sprite sprite, int xOff, int yOff, int angleOff) {
         sprites.add(new SpriteDraw(sprite, xOff, yOff, angleOff));
+        invalidate();
     }
 
     /**
@@ -84,6 +94,7 @@ public class SpriteBatch extends Sprite {
             }
         }
         sprites.add(new SpriteDraw(sprite, xOff, yOff, angle));
+        invalidate();
     }
 
 
@@ -100,25 +111,183 @@ public class SpriteBatch extends Sprite {
     @Override
     public void render(Graphics2D g, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2,
                        int sy2) {
+        if(isWhole(dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2)) {
+            Sprite flat = getFlattened();
+            if(flat != null) {
+                flat.render(g, dx1 + flatX, dy1 + flatY);
+                return;
+            }
+        }
         base.render(g, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2);
         for(SpriteDraw draw : sprites) {
             draw.render(g, dx1, dy1);
         }
         if(clearAfter) {
-            sprites.clear();
+            clear();
         }
     }
 
     @Override
     public void renderRotated(Graphics2D g, int x, int y, int angle, double xScale, double yScale,
                               int xOff, int yOff) {
+        if(isWholeRotated(xScale, yScale, xOff, yOff)) {
+            Sprite flat = getFlattened();
+            if(flat != null) {
+                flat.renderRotated(g, x + flatX, y + flatY, angle, 1.0, 1.0, xOff - flatX,
+                        yOff - flatY);
+                return;
+            }
+        }
         base.renderRotated(g, x, y, angle, xScale, yScale, xOff, yOff);
         for(SpriteDraw draw : sprites) {
             draw.renderRotated(g, x, y, angle);
         }
 
         if(clearAfter) {
-            sprites.clear();
+            clear();
+        }
+    }
+
+    @Override
+    public void render(SoftwareRenderer renderer, int dx1, int dy1, int dx2, int dy2, int sx1,
+                       int sy1, int sx2, int sy2) {
+        if(isWhole(dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2)) {
+            Sprite flat = getFlattened();
+            if(flat != null) {
+                flat.render(renderer, dx1 + flatX, dy1 + flatY);
+                return;
+            }
+        }
+        base.render(renderer, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2);
+        for(SpriteDraw draw : sprites) {
+            draw.render(renderer, dx1, dy1);
+        }
+        if(clearAfter) {
+            clear();
+        }
+    }
+
+    @Override
+    public void renderRotated(SoftwareRenderer renderer, int x, int y, int angle, double xScale,
+                              double yScale, int xOff, int yOff) {
+        //with the Graphics2D of the renderer so the added sprites are rotated the same way
+        renderRotated(renderer.getGraphics(), x, y, angle, xScale, yScale, xOff, yOff);
+    }
+
+    @Override
+    protected PixelRaster createRaster() {
+        //the sprites drawn on the base change so there is no raster of the whole batch
+        return null;
+    }
+
+    //whether the render draws the whole batch unscaled, the only case the flattened image is for
+    private boolean isWhole(int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2,
+                            int sy2) {
+        int width = base.getWidth();
+        int height = base.getHeight();
+        return canFlatten() && sx1 == 0 && sy1 == 0 && sx2 == width && sy2 == height &&
+                dx2 - dx1 == width && dy2 - dy1 == height;
+    }
+
+    //the sprites rotate around the middle of the base unscaled, so only then it is the same
+    private boolean isWholeRotated(double xScale, double yScale, int xOff, int yOff) {
+        if(!canFlatten() || xScale != 1.0 || yScale != 1.0 || xOff != base.getWidth() / 2 ||
+                yOff != base.getHeight() / 2) {
+            return false;
+        }
+        for(SpriteDraw draw : sprites) {
+            if(draw.angleOff != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //a batch cleared after every draw is never drawn the same twice, so it is not flattened
+    private boolean canFlatten() {
+        return flatten && !clearAfter;
+    }
+
+    //draw the batch into one image if it has not been done yet, null if it can't be flattened
+    private Sprite getFlattened() {
+        if(flattened != null) {
+            return flattened;
+        }
+        if(!isStatic(base)) {
+            return null;
+        }
+        int minX = 0;
+        int minY = 0;
+        int maxX = base.getWidth();
+        int maxY = base.getHeight();
+        for(SpriteDraw draw : sprites) {
+            if(!isStatic(draw.sprite)) {
+                return null;
+            }
+            minX = Math.min(minX, draw.xOff);
+            minY = Math.min(minY, draw.yOff);
+            maxX = Math.max(maxX, draw.xOff + draw.sprite.getWidth());
+            maxY = Math.max(maxY, draw.yOff + draw.sprite.getHeight());
+        }
+        if(maxX - minX <= 0 || maxY - minY <= 0) {
+            return null;
+        }
+        BufferedImage img = ImageUtilities.createAcceleratedImage(maxX - minX, maxY - minY);
+        Graphics2D g = img.createGraphics();
+        base.render(g, -minX, -minY);
+        for(SpriteDraw draw : sprites) {
+            draw.render(g, -minX, -minY);
+        }
+        g.dispose();
+        flatX = minX;
+        flatY = minY;
+        flattened = Sprite.fromBufferedImage(img);
+        return flattened;
+    }
+
+    //sprites which can draw something else every frame can't be flattened
+    private static boolean isStatic(Sprite sprite) {
+        return !(sprite instanceof ProxySprite) && !(sprite instanceof SpriteBatch);
+    }
+
+    private void clear() {
+        sprites.clear();
+        invalidate();
+    }
+
+    private void invalidate() {
+        if(flattened != null) {
+            flattened.flush();
+            flattened = null;
+        }
+    }
+
+    @Override
+    public void flush() {
+        super.flush();
+        invalidate();
+    }
+
+    /**
+     * @return whether this batch is drawn from one image when it is drawn whole
+     */
+    public boolean isFlatten() {
+        return flatten;
+    }
+
+    /**
+     * Set whether this batch should be drawn into one image the first time it is drawn whole, which
+     * is drawn instead of all the sprites until a sprite is added <p>The image is only used when
+     * the batch is drawn unscaled and rotated around the middle of the base. Batches with a {@link
+     * ProxySprite}, like an {@link Animation}, or another SpriteBatch on it are never flattened
+     * because they can change without this batch knowing, neither are batches which are cleared
+     * after every draw.</p>
+     * @param flatten true to draw from one image
+     */
+    public void setFlatten(boolean flatten) {
+        this.flatten = flatten;
+        if(!flatten) {
+            invalidate();
         }
     }
 
@@ -128,6 +297,9 @@ public class SpriteBatch extends Sprite {
 
     public void setClearAfter(boolean clearAfter) {
         this.clearAfter = clearAfter;
+        if(clearAfter) {
+            invalidate();
+        }
     }
 
     private class SpriteDraw {
@@ -148,8 +320,12 @@ public class SpriteBatch extends Sprite {
             sprite.render(g, xBase + xOff, yBase + yOff);
         }
 
+        public void render(SoftwareRenderer renderer, int xBase, int yBase) {
+            sprite.render(renderer, xBase + xOff, yBase + yOff);
+        }
+
         public void renderRotated(Graphics2D g, int x, int y, int angle) {
-            sprite.renderRotated(g, x + xOff, y + yOff, angle + angleOff,
+            sprite.renderRotated(g, x + xOff, y + yOff, angle + angleOff, 1.0, 1.0,
                     base.getWidth() / 2 - xOff, base.getHeight() / 2 - yOff);
         }
 
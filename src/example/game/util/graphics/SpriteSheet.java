@@ -1,6 +1,7 @@
 package example.game.util.graphics;
 
 import java.awt.Dimension;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 
 /**
@@ -13,44 +14,68 @@ public class SpriteSheet {
     Dimension timeSize;
     private Sprite[] sprites;
     private Dimension spriteSize;
+    //the image all the sprites draw from or null if it is not owned by this sheet
+    private BufferedImage backing;
 
     /**
-     * Create a SpriteSheet based on a sprite
+     * Create a SpriteSheet based on a sprite <p>If the sprite draws an image the sprites of the
+     * sheet draw from that image, otherwise the sprite is rendered once into a new image.</p>
      * @param sprite     the sprite to base it on
      * @param spriteSize the sizes of the sprites inside the SpriteSheet
      */
     public SpriteSheet(Sprite sprite, Dimension spriteSize) {
-        this.spriteSize = spriteSize;
-        BufferedImage img = new BufferedImage(sprite.getWidth(), sprite.getHeight(),
-                BufferedImage.TYPE_INT_ARGB);
-        sprite.render(img.createGraphics(), 0, 0);
-        timeSize = new Dimension(img.getWidth() / this.spriteSize.width,
-                img.getHeight() / this.spriteSize.height);
-        sprites = new Sprite[timeSize.width * timeSize.height];
-        for(int x = 0; x < img.getWidth(); x += spriteSize.width) {
-            for(int y = 0; y < img.getHeight(); y += spriteSize.height) {
-                sprites[x / spriteSize.width + y / spriteSize.height * timeSize.width] =
-                        Sprite.createAcceleratedSprite(
-                                img.getSubimage(x, y, spriteSize.width, spriteSize.height));
-            }
+        if(sprite instanceof RegionSprite) {
+            RegionSprite region = (RegionSprite) sprite;
+            split(region.getImage(), region.getX(), region.getY(), region.getWidth(),
+                    region.getHeight(), spriteSize);
+            return;
         }
+        BufferedImage img;
+        if(sprite instanceof NormalSprite) {
+            img = ((NormalSprite) sprite).getImg();
+        } else {
+            img = ImageUtilities.createAcceleratedImage(sprite.getWidth(), sprite.getHeight());
+            Graphics2D g = img.createGraphics();
+            sprite.render(g, 0, 0);
+            g.dispose();
+            backing = img;
+        }
+        split(img, 0, 0, img.getWidth(), img.getHeight(), spriteSize);
     }
 
     /**
-     * Create a spritesheet from the specified image and sprite size
+     * Create a spritesheet from the specified image and sprite size <p>The image is not copied, all
+     * the sprites draw their part of it so it should be accelerated already.</p>
      * @param img        the image on which the sprites are located
      * @param spriteSize the size of each sprite
      */
     public SpriteSheet(BufferedImage img, Dimension spriteSize) {
+        split(img, 0, 0, img.getWidth(), img.getHeight(), spriteSize);
+        backing = img;
+    }
+
+    /**
+     * Create a spritesheet from the specified image and sprite size, the image is packed in the
+     * {@link TextureAtlas} given once and the sprites draw their part of it
+     * @param img        the image on which the sprites are located
+     * @param spriteSize the size of each sprite
+     * @param atlas      the TextureAtlas to pack the image in
+     */
+    public SpriteSheet(BufferedImage img, Dimension spriteSize, TextureAtlas atlas) {
+        this(atlas.add(img), spriteSize);
+    }
+
+    //make a RegionSprite for every cell in a rectangle of the image
+    private void split(BufferedImage img, int x, int y, int width, int height,
+                       Dimension spriteSize) {
         this.spriteSize = spriteSize;
-        timeSize = new Dimension(img.getWidth() / this.spriteSize.width,
-                img.getHeight() / this.spriteSize.height);
+        timeSize = new Dimension(width / spriteSize.width, height / spriteSize.height);
         sprites = new Sprite[timeSize.width * timeSize.height];
-        for(int x = 0; x < img.getWidth(); x += spriteSize.width) {
-            for(int y = 0; y < img.getHeight(); y += spriteSize.height) {
-                sprites[x / spriteSize.width + y / spriteSize.height * timeSize.width] =
-                        Sprite.createAcceleratedSprite(
-                                img.getSubimage(x, y, spriteSize.width, spriteSize.height));
+        for(int row = 0; row < timeSize.height; row++) {
+            for(int column = 0; column < timeSize.width; column++) {
+                sprites[column + row * timeSize.width] = new RegionSprite(img,
+                        x + column * spriteSize.width, y + row * spriteSize.height,
+                        spriteSize.width, spriteSize.height);
             }
         }
     }
@@ -80,6 +105,16 @@ public class SpriteSheet {
         return sprite;
     }
 
+    /**
+     * Free the resources of all the sprites which can be made again
+     * @see Sprite#flush()
+     */
+    public void flush() {
+        if(backing != null) {
+            backing.flush();
+        }
+    }
+
     public int getSpriteAmount() {
         return timeSize.width * timeSize.height;
     }
@@ -0,0 +1,245 @@
+package example.game.util.graphics;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A TextureAtlas packs many small images into a few large accelerated pages, the sprites it returns
+ * are {@link RegionSprite}s which draw their part of a page <p>Drawing from a few large images
+ * lets Java2D keep them cached instead of managing hundreds of small images. The images are packed
+ * with a skyline packer, images larger than a page get an image of their own.</p> <p>Regions can
+ * not be removed, the pages stay until the TextureAtlas is flushed and discarded.</p>
+ * @author davidot
+ */
+public class TextureAtlas {
+
+    /**
+     * Default width and height of a page
+     */
+    public static final int DEFAULT_PAGE_SIZE = 1024;
+
+    //space between regions so scaled drawing does not take pixels of the neighbours
+    private static final int PADDING = 1;
+
+    private final int pageSize;
+    private final List<Page> pages = new ArrayList<Page>();
+
+    /**
+     * Create a TextureAtlas with pages of the default size
+     */
+    public TextureAtlas() {
+        this(DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Create a TextureAtlas with pages of the size given
+     * @param pageSize the width and height of each page
+     */
+    public TextureAtlas(int pageSize) {
+        if(pageSize <= 0) {
+            throw new IllegalArgumentException("Page size has to be positive");
+        }
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Pack an image into this TextureAtlas
+     * @param img the image to pack
+     *
+     * @return the sprite which draws the packed image
+     */
+    public Sprite add(BufferedImage img) {
+        return add(img, 0, 0, img.getWidth(), img.getHeight());
+    }
+
+    /**
+     * Pack a rectangle of an image into this TextureAtlas
+     * @param img    the image to pack a part of
+     * @param x      the x coordinate of the rectangle
+     * @param y      the y coordinate of the rectangle
+     * @param width  the width of the rectangle
+     * @param height the height of the rectangle
+     *
+     * @return the sprite which draws the packed rectangle
+     */
+    public synchronized Sprite add(BufferedImage img, int x, int y, int width, int height) {
+        if(width + PADDING > pageSize || height + PADDING > pageSize) {
+            //too large for a page, give it its own image
+            return Sprite.createAcceleratedSprite(img.getSubimage(x, y, width, height));
+        }
+        for(Page page : pages) {
+            Sprite sprite = page.add(img, x, y, width, height);
+            if(sprite != null) {
+                return sprite;
+            }
+        }
+        Page page = new Page(pageSize);
+        pages.add(page);
+        return page.add(img, x, y, width, height);
+    }
+
+    /**
+     * Pack a sprite into this TextureAtlas, the sprite is rendered once into a page
+     * @param sprite the sprite to pack
+     *
+     * @return the sprite which draws the packed sprite
+     */
+    public Sprite add(Sprite sprite) {
+        if(sprite.getWidth() <= 0 || sprite.getHeight() <= 0) {
+            return sprite;
+        }
+        BufferedImage img = ImageUtilities.createAcceleratedImage(sprite.getWidth(),
+                sprite.getHeight());
+        Graphics2D g = img.createGraphics();
+        sprite.render(g, 0, 0);
+        g.dispose();
+        return add(img);
+    }
+
+    /**
+     * @return the amount of pages in use
+     */
+    public synchronized int getPageCount() {
+        return pages.size();
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Free the copies of the pages in video memory
+     * @see Sprite#flush()
+     */
+    public synchronized void flush() {
+        for(Page page : pages) {
+            page.img.flush();
+        }
+    }
+
+    //one page with a skyline, the skyline is a list of segments sorted on x which together span
+    // the width of the page, the y of a segment is the lowest free row above it
+    private static class Page {
+
+        private final BufferedImage img;
+        private final int size;
+        private int[] segmentX = new int[16];
+        private int[] segmentY = new int[16];
+        private int[] segmentWidth = new int[16];
+        private int segments;
+
+        private Page(int size) {
+            this.size = size;
+            img = ImageUtilities.createAcceleratedImage(size, size);
+            segmentWidth[0] = size;
+            segments = 1;
+        }
+
+        //returns null if it does not fit
+        private Sprite add(BufferedImage source, int sx, int sy, int width, int height) {
+            int paddedWidth = Math.min(width + PADDING, size);
+            int paddedHeight = Math.min(height + PADDING, size);
+
+            //find the segment where the region ends the lowest, then the most left
+            int best = -1;
+            int bestY = 0;
+            int bestTop = Integer.MAX_VALUE;
+            for(int i = 0; i < segments; i++) {
+                int y = fits(i, paddedWidth, paddedHeight);
+                if(y >= 0 && y + paddedHeight < bestTop) {
+                    best = i;
+                    bestY = y;
+                    bestTop = y + paddedHeight;
+                }
+            }
+            if(best < 0) {
+                return null;
+            }
+            int x = segmentX[best];
+            place(best, x, bestY + paddedHeight, paddedWidth);
+
+            Graphics2D g = img.createGraphics();
+            g.drawImage(source, x, bestY, x + width, bestY + height, sx, sy, sx + width,
+                    sy + height, null);
+            g.dispose();
+            return new RegionSprite(img, x, bestY, width, height);
+        }
+
+        //the y at which a region starting at the segment fits or -1 if it does not fit
+        private int fits(int index, int width, int height) {
+            int x = segmentX[index];
+            if(x + width > size) {
+                return -1;
+            }
+            int y = 0;
+            int left = width;
+            for(int i = index; left > 0; i++) {
+                y = Math.max(y, segmentY[i]);
+                if(y + height > size) {
+                    return -1;
+                }
+                left -= segmentWidth[i];
+            }
+            return y;
+        }
+
+        //put a new segment on the skyline and cut the segments below it
+        private void place(int index, int x, int y, int width) {
+            int end = x + width;
+            //remove or shorten the segments covered by the new one
+            int i = index;
+            while(i < segments && segmentX[i] < end) {
+                int segmentEnd = segmentX[i] + segmentWidth[i];
+                if(segmentEnd <= end) {
+                    remove(i);
+                } else {
+                    segmentWidth[i] = segmentEnd - end;
+                    segmentX[i] = end;
+                    break;
+                }
+            }
+            insert(index, x, y, width);
+            merge();
+        }
+
+        private void insert(int index, int x, int y, int width) {
+            if(segments == segmentX.length) {
+                segmentX = Arrays.copyOf(segmentX, segments * 2);
+                segmentY = Arrays.copyOf(segmentY, segments * 2);
+                segmentWidth = Arrays.copyOf(segmentWidth, segments * 2);
+            }
+            int move = segments - index;
+            System.arraycopy(segmentX, index, segmentX, index + 1, move);
+            System.arraycopy(segmentY, index, segmentY, index + 1, move);
+            System.arraycopy(segmentWidth, index, segmentWidth, index + 1, move);
+            segmentX[index] = x;
+            segmentY[index] = y;
+            segmentWidth[index] = width;
+            segments++;
+        }
+
+        private void remove(int index) {
+            int move = segments - index - 1;
+            System.arraycopy(segmentX, index + 1, segmentX, index, move);
+            System.arraycopy(segmentY, index + 1, segmentY, index, move);
+            System.arraycopy(segmentWidth, index + 1, segmentWidth, index, move);
+            segments--;
+        }
+
+        //join neighbouring segments of the same height
+        private void merge() {
+            for(int i = 0; i < segments - 1; ) {
+                if(segmentY[i] == segmentY[i + 1]) {
+                    segmentWidth[i] += segmentWidth[i + 1];
+                    remove(i + 1);
+                } else {
+                    i++;
+                }
+            }
+        }
+    }
+
+}
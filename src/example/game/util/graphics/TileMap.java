@@ -0,0 +1,279 @@
+package example.game.util.graphics;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * A TileMap is a grid of tiles from a {@link SpriteSheet} which is drawn in chunks <p>The tiles are
+ * stored as the index of their sprite in the sheet, -1 is an empty tile. Every chunk of tiles is
+ * drawn once into an image and a render only draws the images of the chunks in the viewport, a
+ * chunk is only drawn again after one of its tiles changed.</p> <p>A TileMap should only be used by
+ * one thread at a time.</p>
+ * @author davidot
+ */
+public class TileMap {
+
+    /**
+     * The index of a tile without a sprite
+     */
+    public static final short EMPTY = -1;
+    /**
+     * The default width and height of a chunk in tiles
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 16;
+
+    private final SpriteSheet sheet;
+    private final int width;
+    private final int height;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final int chunkSize;
+    private final int chunksWide;
+    private final int chunksHigh;
+    private final short[] tiles;
+    private final Chunk[] chunks;
+    private int drawn; //0
+    private int redrawn; //0
+
+    /**
+     * Create an empty TileMap with chunks of the default size
+     * @param sheet  the sheet with the sprites of the tiles
+     * @param width  the width in tiles
+     * @param height the height in tiles
+     */
+    public TileMap(SpriteSheet sheet, int width, int height) {
+        this(sheet, width, height, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Create an empty TileMap
+     * @param sheet     the sheet with the sprites of the tiles
+     * @param width     the width in tiles
+     * @param height    the height in tiles
+     * @param chunkSize the width and height of a chunk in tiles
+     */
+    public TileMap(SpriteSheet sheet, int width, int height, int chunkSize) {
+        if(width <= 0 || height <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("Sizes have to be positive");
+        }
+        if(sheet.getSpriteAmount() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Sheet has too many sprites for a TileMap");
+        }
+        this.sheet = sheet;
+        this.width = width;
+        this.height = height;
+        this.chunkSize = chunkSize;
+        tileWidth = sheet.getSpriteSize().width;
+        tileHeight = sheet.getSpriteSize().height;
+        chunksWide = (width + chunkSize - 1) / chunkSize;
+        chunksHigh = (height + chunkSize - 1) / chunkSize;
+        tiles = new short[width * height];
+        Arrays.fill(tiles, EMPTY);
+        chunks = new Chunk[chunksWide * chunksHigh];
+        for(int i = 0; i < chunks.length; i++) {
+            chunks[i] = new Chunk();
+        }
+    }
+
+    /**
+     * Get the tile at a location
+     * @param x the x coordinate in tiles
+     * @param y the y coordinate in tiles
+     *
+     * @return the index of the sprite in the sheet or {@link #EMPTY}, also outside of the map
+     */
+    public int getTile(int x, int y) {
+        if(x < 0 || y < 0 || x >= width || y >= height) {
+            return EMPTY;
+        }
+        return tiles[x + y * width];
+    }
+
+    /**
+     * Set the tile at a location, the chunk of the tile is drawn again on the next render if the
+     * tile changed
+     * @param x    the x coordinate in tiles
+     * @param y    the y coordinate in tiles
+     * @param tile the index of the sprite in the sheet or {@link #EMPTY}
+     */
+    public void setTile(int x, int y, int tile) {
+        if(x < 0 || y < 0 || x >= width || y >= height) {
+            throw new IndexOutOfBoundsException("Tile " + x + "," + y + " is outside of the map");
+        }
+        if(tile < EMPTY || tile >= sheet.getSpriteAmount()) {
+            throw new IllegalArgumentException("No sprite " + tile + " in the sheet");
+        }
+        int index = x + y * width;
+        if(tiles[index] == tile) {
+            return;
+        }
+        tiles[index] = (short) tile;
+        chunks[x / chunkSize + y / chunkSize * chunksWide].dirty = true;
+    }
+
+    /**
+     * Set all the tiles in a rectangle to one tile
+     * @param x      the x coordinate of the rectangle in tiles
+     * @param y      the y coordinate of the rectangle in tiles
+     * @param width  the width of the rectangle in tiles
+     * @param height the height of the rectangle in tiles
+     * @param tile   the index of the sprite in the sheet or {@link #EMPTY}
+     */
+    public void fill(int x, int y, int width, int height, int tile) {
+        for(int row = y; row < y + height; row++) {
+            for(int column = x; column < x + width; column++) {
+                setTile(column, row, tile);
+            }
+        }
+    }
+
+    /**
+     * Draw the chunks in the viewport, the tile at 0,0 is drawn at the negative camera location
+     * @param g       the graphics to draw with
+     * @param cameraX the x coordinate in pixels of the left top of the viewport
+     * @param cameraY the y coordinate in pixels of the left top of the viewport
+     * @param width   the width of the viewport
+     * @param height  the height of the viewport
+     */
+    public void render(Graphics2D g, int cameraX, int cameraY, int width, int height) {
+        drawn = 0;
+        redrawn = 0;
+        int chunkWidth = chunkSize * tileWidth;
+        int chunkHeight = chunkSize * tileHeight;
+        int minX = Math.max(floorDiv(cameraX, chunkWidth), 0);
+        int minY = Math.max(floorDiv(cameraY, chunkHeight), 0);
+        int maxX = Math.min(floorDiv(cameraX + width - 1, chunkWidth), chunksWide - 1);
+        int maxY = Math.min(floorDiv(cameraY + height - 1, chunkHeight), chunksHigh - 1);
+        for(int chunkY = minY; chunkY <= maxY; chunkY++) {
+            for(int chunkX = minX; chunkX <= maxX; chunkX++) {
+                BufferedImage img = getImage(chunkX, chunkY);
+                g.drawImage(img, chunkX * chunkWidth - cameraX, chunkY * chunkHeight - cameraY,
+                        null);
+                drawn++;
+            }
+        }
+    }
+
+    /**
+     * Draw the chunks in the viewport with a {@link SoftwareRenderer}, the tile at 0,0 is drawn at
+     * the negative camera location
+     * @param renderer the renderer to draw with
+     * @param cameraX  the x coordinate in pixels of the left top of the viewport
+     * @param cameraY  the y coordinate in pixels of the left top of the viewport
+     * @param width    the width of the viewport
+     * @param height   the height of the viewport
+     */
+    public void render(SoftwareRenderer renderer, int cameraX, int cameraY, int width,
+                       int height) {
+        drawn = 0;
+        redrawn = 0;
+        int chunkWidth = chunkSize * tileWidth;
+        int chunkHeight = chunkSize * tileHeight;
+        int minX = Math.max(floorDiv(cameraX, chunkWidth), 0);
+        int minY = Math.max(floorDiv(cameraY, chunkHeight), 0);
+        int maxX = Math.min(floorDiv(cameraX + width - 1, chunkWidth), chunksWide - 1);
+        int maxY = Math.min(floorDiv(cameraY + height - 1, chunkHeight), chunksHigh - 1);
+        for(int chunkY = minY; chunkY <= maxY; chunkY++) {
+            for(int chunkX = minX; chunkX <= maxX; chunkX++) {
+                Chunk chunk = chunks[chunkX + chunkY * chunksWide];
+                BufferedImage img = getImage(chunkX, chunkY);
+                if(chunk.raster == null) {
+                    chunk.raster = PixelRaster.fromImage(img);
+                }
+                renderer.draw(chunk.raster, chunkX * chunkWidth - cameraX,
+                        chunkY * chunkHeight - cameraY);
+                drawn++;
+            }
+        }
+    }
+
+    //the image of a chunk, drawn again if a tile changed
+    private BufferedImage getImage(int chunkX, int chunkY) {
+        Chunk chunk = chunks[chunkX + chunkY * chunksWide];
+        if(chunk.img != null && !chunk.dirty) {
+            return chunk.img;
+        }
+        if(chunk.img == null) {
+            chunk.img = ImageUtilities.createAcceleratedImage(chunkSize * tileWidth,
+                    chunkSize * tileHeight);
+        } else {
+            ImageUtilities.clearImage(chunk.img);
+        }
+        Graphics2D g = chunk.img.createGraphics();
+        int startX = chunkX * chunkSize;
+        int startY = chunkY * chunkSize;
+        int endX = Math.min(startX + chunkSize, width);
+        int endY = Math.min(startY + chunkSize, height);
+        for(int y = startY; y < endY; y++) {
+            for(int x = startX; x < endX; x++) {
+                short tile = tiles[x + y * width];
+                if(tile != EMPTY) {
+                    sheet.getSprite(tile).render(g, (x - startX) * tileWidth,
+                            (y - startY) * tileHeight);
+                }
+            }
+        }
+        g.dispose();
+        chunk.dirty = false;
+        chunk.raster = null;
+        redrawn++;
+        return chunk.img;
+    }
+
+    private static int floorDiv(int value, int divisor) {
+        return value >= 0 ? value / divisor : (value + 1) / divisor - 1;
+    }
+
+    /**
+     * Free the images of all chunks, they are drawn again when they are in the viewport
+     */
+    public void flush() {
+        for(Chunk chunk : chunks) {
+            if(chunk.img != null) {
+                chunk.img.flush();
+                chunk.img = null;
+            }
+            chunk.raster = null;
+        }
+    }
+
+    /**
+     * @return the amount of chunks drawn by the last render
+     */
+    public int getDrawnChunks() {
+        return drawn;
+    }
+
+    /**
+     * @return the amount of chunks the last render had to draw again because a tile changed
+     */
+    public int getRedrawnChunks() {
+        return redrawn;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public SpriteSheet getSheet() {
+        return sheet;
+    }
+
+    private static class Chunk {
+
+        private BufferedImage img;
+        //the pixels for the SoftwareRenderer, null until used or after the image changed
+        private PixelRaster raster;
+        private boolean dirty;
+    }
+
+}
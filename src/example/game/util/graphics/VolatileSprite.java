@@ -0,0 +1,145 @@
+package example.game.util.graphics;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/**
+ * A VolatileSprite draws a {@link VolatileImage} which is kept in video memory, instead of hoping
+ * Java2D keeps a copy of a normal image there <p>The contents of a VolatileImage can be lost at any
+ * time, for example when the screen mode changes. Before every draw the image is validated against
+ * the configuration of the graphics drawn to and the contents are restored from a copy in system
+ * memory when they are lost.</p> <p>A VolatileSprite should be drawn by one thread at a time.</p>
+ * @author davidot
+ */
+public class VolatileSprite extends Sprite {
+
+    //tries before drawing the copy in system memory
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final BufferedImage source;
+    private VolatileImage img;
+
+    /**
+     * Create a VolatileSprite which draws the image given, the image is the copy the contents are
+     * restored from so it should not change
+     * @param source the image to draw
+     */
+    public VolatileSprite(BufferedImage source) {
+        if(source == null) {
+            throw new IllegalArgumentException("Image is null");
+        }
+        this.source = source;
+    }
+
+    /**
+     * Make sure the VolatileImage can be drawn on a configuration and has its contents
+     * @param config the configuration drawn to
+     *
+     * @return the image ready to draw
+     */
+    private VolatileImage validate(GraphicsConfiguration config) {
+        if(img == null) {
+            img = create(config);
+            restore();
+            return img;
+        }
+        switch(img.validate(config)) {
+            case VolatileImage.IMAGE_INCOMPATIBLE:
+                img.flush();
+                img = create(config);
+                restore();
+                break;
+            case VolatileImage.IMAGE_RESTORED:
+                restore();
+                break;
+            default:
+                break;
+        }
+        return img;
+    }
+
+    private VolatileImage create(GraphicsConfiguration config) {
+        return config.createCompatibleVolatileImage(source.getWidth(), source.getHeight(),
+                Transparency.TRANSLUCENT);
+    }
+
+    private void restore() {
+        Graphics2D g = img.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(source, 0, 0, null);
+        g.dispose();
+    }
+
+    @Override
+    public void render(Graphics2D g, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2,
+                       int sy2) {
+        GraphicsConfiguration config = g.getDeviceConfiguration();
+        for(int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            VolatileImage img = validate(config);
+            g.drawImage(img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null);
+            if(!img.contentsLost()) {
+                return;
+            }
+        }
+        //keeps getting lost, draw the copy so there is something on the screen
+        g.drawImage(source, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null);
+    }
+
+    @Override
+    public void renderRotated(Graphics2D g, int x, int y, int angle, double xScale, double yScale,
+                              int xOff, int yOff) {
+        GraphicsConfiguration config = g.getDeviceConfiguration();
+        for(int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            VolatileImage img = validate(config);
+            g.drawImage(img, getRotation(x, y, angle, xScale, yScale, xOff, yOff), null);
+            if(!img.contentsLost()) {
+                return;
+            }
+        }
+        g.drawImage(source, getRotation(x, y, angle, xScale, yScale, xOff, yOff), null);
+    }
+
+    @Override
+    protected PixelRaster createRaster() {
+        return PixelRaster.fromImage(source);
+    }
+
+    @Override
+    public int getWidth() {
+        return source.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return source.getHeight();
+    }
+
+    /**
+     * @return whether the VolatileImage is accelerated, false if it has not been drawn yet
+     */
+    public boolean isAccelerated() {
+        VolatileImage img = this.img;
+        return img != null && img.getCapabilities().isAccelerated();
+    }
+
+    /**
+     * @return the copy in system memory the contents are restored from
+     */
+    public Image getSource() {
+        return source;
+    }
+
+    @Override
+    public void flush() {
+        super.flush();
+        if(img != null) {
+            img.flush();
+            img = null;
+        }
+    }
+}
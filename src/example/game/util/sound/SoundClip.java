@@ -76,6 +76,12 @@ public class SoundClip implements Runnable {
             }
             try {
                 byte[] data = soundData.getData();
+                if(data == null) {
+                    //the sound was closed before it could be played
+                    inited.set(true);
+                    clip.close();
+                    return;
+                }
                 clip.open(soundData.getFormat(), data, 0, data.length);
                 clip.setFramePosition(0);
                 clip.loop(times);
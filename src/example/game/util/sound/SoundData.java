@@ -22,7 +22,7 @@ public class SoundData {
     private final SoundType type;
 
     private byte[] data;
-    private AudioFormat format;
+    private final AudioFormat format;
 
     /**
      * Sound data holds the data loaded from .wav or .ogg files
@@ -31,20 +31,36 @@ public class SoundData {
      */
     public SoundData(BufferedInputStream input, SoundType type) {
         this.type = type;
+        byte[] data = null;
+        AudioFormat format = null;
         try {
-            loadData(input);
+            AudioInputStream stream = AudioSystem.getAudioInputStream(input);
+            format = stream.getFormat();
+            data = loadData(stream, format);
         } catch(IOException e) {
             e.printStackTrace();
         } catch(UnsupportedAudioFileException e) {
             e.printStackTrace();
         }
+        this.data = data;
+        this.format = format;
     }
 
-    private void loadData(BufferedInputStream input)
-            throws IOException, UnsupportedAudioFileException {
-        AudioInputStream stream = AudioSystem.getAudioInputStream(input);
-        format = stream.getFormat();
-        data = new byte[(int) (stream.getFrameLength() * format.getFrameSize())];
+    /**
+     * Create SoundData which shares the sound data of another SoundData but has a different type
+     * <p>The data is not copied so this costs almost no memory</p>
+     * @param source the SoundData of which to share the data
+     * @param type   the standard type when this SoundData will be played
+     */
+    public SoundData(SoundData source, SoundType type) {
+        this.type = type;
+        this.data = source.getData();
+        this.format = source.getFormat();
+    }
+
+    private static byte[] loadData(AudioInputStream stream, AudioFormat format)
+            throws IOException {
+        byte[] data = new byte[(int) (stream.getFrameLength() * format.getFrameSize())];
         byte[] buf = new byte[BUFFERSIZE];
         for(int i = 0; i < data.length; i += BUFFERSIZE) {
             int r = stream.read(buf, 0, BUFFERSIZE);
@@ -54,6 +70,7 @@ public class SoundData {
             System.arraycopy(buf, 0, data, i, r);
         }
         stream.close();
+        return data;
     }
 
     /**
@@ -63,6 +80,10 @@ public class SoundData {
      * @param inLevel whether the sound should be stopped when the level is
      */
     protected void play(SoundHandler handler, int times, boolean inLevel) {
+        if(isClosed()) {
+            System.out.println("WARNING: Playing sound which is closed");
+            return;
+        }
         if(type.getVolume() < 0) {
             return; //don't play sound this type is off
         }
@@ -80,4 +101,27 @@ public class SoundData {
     protected synchronized byte[] getData() {
         return data;
     }
+
+    /**
+     * Free the sound data, after this the sound can no longer be played <p>Clips which are already
+     * playing keep playing</p>
+     */
+    public synchronized void close() {
+        data = null;
+    }
+
+    /**
+     * @return whether the sound data is freed
+     */
+    public synchronized boolean isClosed() {
+        return data == null;
+    }
+
+    /**
+     * @return the amount of bytes of sound data held
+     */
+    public int getSize() {
+        byte[] data = getData();
+        return data == null ? 0 : data.length;
+    }
 }
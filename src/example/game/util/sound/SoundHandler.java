@@ -1,18 +1,19 @@
 package example.game.util.sound;
 
 import example.game.Game;
+import example.game.util.ResourceRegistry;
 
 import java.io.BufferedInputStream;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * This is the class where all the methods used for sounds are located. <p> {@link Game} has one
- * instance of the SoundHandler available via {@link Game#getSoundHandler()} </p>
+ * instance of the SoundHandler available via {@link Game#getSoundHandler()} </p> <p>Sounds can
+ * be added and played from any thread</p>
  * @author davidot
  */
 public class SoundHandler {
@@ -24,8 +25,16 @@ public class SoundHandler {
     private static final String COULD_NOT_FIND_SOUND = "Could not find sound{";
     private static final String COULD_NOT_FIND_SOUND_END = "}";
 
-    private static Map<String, SoundData> sounds = new HashMap<String, SoundData>();
-    private List<SoundClip> clips = new ArrayList<SoundClip>();
+    private static final ResourceRegistry<SoundData> sounds = new ResourceRegistry<SoundData>() {
+        @Override
+        protected void onRelease(String name, SoundData value) {
+            //the same data can be stored under multiple names
+            if(!isStored(value)) {
+                value.close();
+            }
+        }
+    };
+    private final Queue<SoundClip> clips = new ConcurrentLinkedQueue<SoundClip>();
 
     /**
      * Creates the SoundHandler which reads and writes to the given options
@@ -79,8 +88,9 @@ public class SoundHandler {
      * @param inLevel whether it should react to the level methods
      */
     public void playLoop(String name, int times, boolean inLevel) {
-        if(sounds.containsKey(name)) {
-            sounds.get(name).play(this, times, inLevel);
+        SoundData sound = sounds.get(name);
+        if(sound != null) {
+            sound.play(this, times, inLevel);
         } else {
             System.out.println(COULD_NOT_FIND_SOUND + name + COULD_NOT_FIND_SOUND_END);
         }
@@ -104,8 +114,9 @@ public class SoundHandler {
      * @param inLevel whether
      */
     public void playForceTypeLoop(String name, SoundType type, int times, boolean inLevel) {
-        if(sounds.containsKey(name)) {
-            add(new SoundClip(sounds.get(name), type, times, inLevel));
+        SoundData sound = sounds.get(name);
+        if(sound != null) {
+            add(new SoundClip(sound, type, times, inLevel));
         } else {
             System.out.println(COULD_NOT_FIND_SOUND + name + COULD_NOT_FIND_SOUND_END);
         }
@@ -119,11 +130,20 @@ public class SoundHandler {
      * @see #addSound(InputStream, String, SoundType) to not have to create the object yourself
      */
     public static void addSound(String name, SoundData sound) {
-        if(sounds.containsKey(name)) {
+        if(sounds.put(name, sound) != null) {
             System.out.println("WARING: Sound being overwritten by {name = " + name +
                     COULD_NOT_FIND_SOUND_END);
         }
-        sounds.put(name, sound);
+    }
+
+    /**
+     * Remove the sound under a name, its data is freed if no other name uses it
+     * @param name the name of the sound
+     *
+     * @return true if a sound was removed
+     */
+    public static boolean removeSound(String name) {
+        return sounds.remove(name) != null;
     }
 
     /**
@@ -133,7 +153,7 @@ public class SoundHandler {
      * @return true if a sound under the name given is already loaded
      */
     public static boolean hasSound(String name) {
-        return sounds.containsKey(name);
+        return sounds.contains(name);
     }
 
     /**
@@ -143,14 +163,50 @@ public class SoundHandler {
      * @param type  the type of the sound
      */
     public static void addSound(InputStream input, String name, SoundType type) {
-        if(sounds.containsKey(name)) {
-            System.out.println("WARING: Sound being overwritten by {name = " + name +
-                    COULD_NOT_FIND_SOUND_END);
-        }
-        sounds.put(name, new SoundData(new BufferedInputStream(input), type));
+        addSound(name, new SoundData(new BufferedInputStream(input), type));
     }
 
 
+    /**
+     * Add a reference to a sound, it will stay loaded until {@link #releaseSound(String)} is
+     * called as many times as this method
+     * @param name the name of the sound
+     *
+     * @return true if the sound is loaded and the reference is added
+     */
+    public static boolean acquireSound(String name) {
+        return sounds.acquire(sounds.findId(name)) != null;
+    }
+
+    /**
+     * Remove a reference to a sound, when the last reference is removed the sound data is freed
+     * @param name the name of the sound
+     *
+     * @return true if this was the last reference and the sound is freed
+     */
+    public static boolean releaseSound(String name) {
+        return sounds.release(sounds.findId(name));
+    }
+
+    /**
+     * Get the amount of references of all the sounds
+     * @return the amount of references
+     * @see ResourceRegistry#getReferences()
+     */
+    public static int[] getSoundReferences() {
+        return sounds.getReferences();
+    }
+
+    /**
+     * Find the sounds which have more references than before
+     * @param before the references from {@link #getSoundReferences()}
+     *
+     * @return a description of every sound which has more references
+     */
+    public static List<String> findSoundLeaks(int[] before) {
+        return sounds.findLeaks(before);
+    }
+
     void add(SoundClip soundClip) {
         clips.add(soundClip);
     }